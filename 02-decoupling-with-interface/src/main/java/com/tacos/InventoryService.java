@@ -1,11 +1,24 @@
 package com.tacos;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 // InventoryService interface
 
 public interface InventoryService{
 
 	// abstract method
 	int getStock(String productId);
-}
 
+	// bulk lookup - implementations backed by a real store should override this
+	// with a single round trip; the default just falls back to one call per id
+	default Map<String, Integer> getStocks(Collection<String> productIds){
+		Map<String, Integer> stocks = new HashMap<>();
+		for(String productId : productIds){
+			stocks.putIfAbsent(productId, getStock(productId));
+		}
+		return stocks;
+	}
+}
 
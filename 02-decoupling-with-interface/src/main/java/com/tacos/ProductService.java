@@ -1,5 +1,8 @@
 package com.tacos;
 
+import java.util.List;
+import java.util.Map;
+
 public class ProductService {
 
 	private final InventoryService inventoryService;
@@ -13,5 +16,13 @@ public class ProductService {
 		int stock = inventoryService.getStock(productId);
 		System.out.println("Product: " + productId + " | Stock: " + stock);
 	}
+
+	// a whole page of products - one bulk lookup instead of one per product
+	public void printProductInfo(List<String> productIds){
+		Map<String, Integer> stocks = inventoryService.getStocks(productIds);
+		for(String productId : productIds){
+			System.out.println("Product: " + productId + " | Stock: " + stocks.get(productId));
+		}
+	}
 	
 }
@@ -0,0 +1,110 @@
+package com.example.tacos.jmh;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.tacos.InventoryService;
+import com.example.tacos.ProductService;
+
+// ProductService -> InventoryService under every Wiring, single- and multi-threaded.
+//
+//   getStock          - just the (possibly proxied) InventoryService call
+//   printProductInfo  - the full lab path incl. string building; System.out is
+//                       swapped for a null stream so we do not benchmark the console
+//
+// Throughput and sampled latency are both reported; run with -prof gc to see
+// allocation per call.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryCallPathBenchmark {
+
+    private static final int SKU_COUNT = 1024;
+
+    @State(Scope.Benchmark)
+    public static class Wired {
+
+        @Param
+        public Wiring wiring;
+
+        ProductService productService;
+        InventoryService inventoryService;
+
+        private Wiring.Wired wired;
+        private PrintStream console;
+
+        @Setup(Level.Trial)
+        public void setUp(){
+            console = System.out;
+            wired = wiring.wire();
+            productService = wired.productService();
+            inventoryService = wired.inventoryService();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown(){
+            System.setOut(console);
+            wired.close();
+        }
+    }
+
+    // each benchmark thread walks its own way through the SKUs
+    @State(Scope.Thread)
+    public static class Skus {
+
+        final String[] ids = new String[SKU_COUNT];
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(){
+            for(int i = 0; i < SKU_COUNT; i++){
+                ids[i] = "SKU-" + (100 + i);
+            }
+        }
+
+        String next(){
+            return ids[next++ & (SKU_COUNT - 1)];
+        }
+    }
+
+    @Benchmark
+    public int getStock(Wired wired, Skus skus){
+        return wired.inventoryService.getStock(skus.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int getStock_4threads(Wired wired, Skus skus){
+        return wired.inventoryService.getStock(skus.next());
+    }
+
+    @Benchmark
+    public void printProductInfo(Wired wired, Skus skus){
+        wired.productService.printProductInfo(skus.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void printProductInfo_4threads(Wired wired, Skus skus){
+        wired.productService.printProductInfo(skus.next());
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.tacos.jmh;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.tacos.DefaultInventoryService;
+import com.example.tacos.InventoryService;
+import com.example.tacos.ProductService;
+
+// Same object graph as the hand-wired setup from lab 02, but assembled by Spring.
+// Comparing the two isolates what the container itself adds to a call.
+@Configuration
+public class PlainWiringConfig {
+
+    @Bean
+    public InventoryService inventoryService(){
+        return new DefaultInventoryService();
+    }
+
+    @Bean
+    public ProductService productService(){
+        return new ProductService(inventoryService());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.tacos.jmh;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.example.tacos.AppConfig;
+import com.example.tacos.DefaultInventoryService;
+import com.example.tacos.InventoryService;
+import com.example.tacos.ProductService;
+
+// The different ways a ProductService -> InventoryService pair can be put together.
+public enum Wiring {
+
+    // lab 02: plain constructor calls
+    DIRECT,
+    // lab 03 style, but with the plain object graph (PlainWiringConfig)
+    SPRING,
+    // the real lab 03 AppConfig - cache + batcher in front of the store
+    SPRING_APP_CONFIG,
+    // hand-written java.lang.reflect.Proxy around the store
+    JDK_PROXY,
+    // Spring AOP interface proxy with one pass-through interceptor (like @Transactional would add)
+    SPRING_JDK_PROXY,
+    // Spring AOP CGLIB subclass proxy with one pass-through interceptor
+    SPRING_CGLIB_PROXY;
+
+    public Wired wire(){
+        switch(this){
+            case SPRING -> {
+                AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(PlainWiringConfig.class);
+                return new Wired(context.getBean(ProductService.class), context.getBean(InventoryService.class), context);
+            }
+            case SPRING_APP_CONFIG -> {
+                AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class);
+                return new Wired(context.getBean(ProductService.class), context.getBean("inventoryService", InventoryService.class), context);
+            }
+            case JDK_PROXY -> {
+                InventoryService target = new DefaultInventoryService();
+                InventoryService proxy = (InventoryService) Proxy.newProxyInstance(
+                    InventoryService.class.getClassLoader(),
+                    new Class<?>[]{InventoryService.class},
+                    (p, method, args) -> {
+                        try{
+                            return method.invoke(target, args);
+                        } catch(InvocationTargetException e){
+                            throw e.getCause();
+                        }
+                    });
+                return new Wired(new ProductService(proxy), proxy, null);
+            }
+            case SPRING_JDK_PROXY, SPRING_CGLIB_PROXY -> {
+                ProxyFactory factory = new ProxyFactory(new DefaultInventoryService());
+                factory.addInterface(InventoryService.class);
+                factory.setProxyTargetClass(this == SPRING_CGLIB_PROXY);
+                factory.addAdvice((MethodInterceptor) invocation -> invocation.proceed());
+                InventoryService proxy = (InventoryService) factory.getProxy();
+                return new Wired(new ProductService(proxy), proxy, null);
+            }
+            default -> {
+                InventoryService inventoryService = new DefaultInventoryService();
+                return new Wired(new ProductService(inventoryService), inventoryService, null);
+            }
+        }
+    }
+
+    public record Wired(ProductService productService, InventoryService inventoryService,
+                        AnnotationConfigApplicationContext context) implements AutoCloseable {
+
+        @Override
+        public void close(){
+            if(context != null){
+                context.close();
+            }
+        }
+    }
+}
@@ -2,6 +2,11 @@ package com.example.tacos;
 // remember we added the dependency with group name - org.springframework
 // and artifact Id - spring-context
 // now we are using annotations, so the import looks like:
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.springframework.context.annotation.*;
 
 @Configuration
@@ -9,12 +14,66 @@ public class AppConfig{
 
     @Bean
     public InventoryService inventoryService(){
-        return new DefaultInventoryService();
-        // swap to MockInventoryService if you want to test
+        // reads go cache -> resilient -> batching -> reservation -> store:
+        // a bounded in-memory cache (at most 10_000 SKUs, each refreshed after 5 minutes)
+        // in front of a guard that keeps a slow store from stalling every caller (250ms
+        // deadline, hedged after the recent p95, at most 1_000 calls outstanding, circuit
+        // open for 5s - doubling on repeated failures - with last known stock served
+        // meanwhile); misses are coalesced into bulk calls to the reservation engine,
+        // which reports the store's stock minus units held for a checkout or sold
+        InventoryService database = new ResilientInventoryService(
+            batchingInventoryService(), inventoryLookupExecutor(), Duration.ofMillis(250), 1_000, Duration.ofSeconds(5));
+        return new CachingInventoryService(database, 10_000, Duration.ofMinutes(5));
+    }
+
+    // concurrent cache misses are coalesced into one bulk "database" call
+    // (2ms window, at most 256 SKUs per batch), sent on the lookup executor;
+    // a bean of its own so its scheduler is shut down with the context
+    @Bean(destroyMethod = "close")
+    public InventoryService batchingInventoryService(){
+        return new BatchingInventoryService(
+            stockReservationService(), Duration.ofMillis(2), 256, inventoryLookupExecutor());
+    }
+
+    // checkout side: reserve / release / commit, starting from the store's stock
+    @Bean
+    public StockReservationService stockReservationService(){
+        return new LockFreeStockReservationService(defaultInventoryService());
+    }
+
+    // the store itself - one instance, so every view of the stock starts from the same table.
+    // run with -Dtacos.stock.snapshot=/path/to/stock.snap to serve real counts
+    // from an off-heap table; without it every SKU reports the demo value 42
+    @Bean
+    public InventoryService defaultInventoryService(){
+        String snapshot = System.getProperty("tacos.stock.snapshot");
+        if(snapshot == null){
+            return new DefaultInventoryService();
+        }
+        return new DefaultInventoryService(OffHeapStockTable.load(Path.of(snapshot)));
+    }
+
+    // one cheap virtual thread per inventory lookup; closed with the context
+    @Bean(destroyMethod = "close")
+    public ExecutorService inventoryLookupExecutor(){
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    // every InventoryService bean above gets wrapped with latency/error tracking
+    @Bean
+    public static InventoryMetricsPostProcessor inventoryMetricsPostProcessor(){
+        return new InventoryMetricsPostProcessor();
+    }
+
+    // p50/p99/p99.9/max per implementation, logged once a minute
+    @Bean
+    public InventoryMetricsReporter inventoryMetricsReporter(InventoryMetricsPostProcessor postProcessor){
+        return InventoryMetricsReporter.start(postProcessor.metrics(), Duration.ofMinutes(1));
     }
 
     @Bean
     public ProductService productService(){
-        return new ProductService(inventoryService());
+        // up to 10_000 lookups in flight, each one bounded by a 2 second deadline
+        return new ProductService(inventoryService(), inventoryLookupExecutor(), 10_000, Duration.ofSeconds(2));
     }
 }
@@ -0,0 +1,206 @@
+package com.example.tacos;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Decorator: DataLoader-style request coalescing.
+//
+// Single-key getStock calls made by different threads within a short window
+// are collected into one pending batch and sent to the delegate as a single
+// getStocks call. The same SKU requested twice in one batch is fetched once.
+// A batch is dispatched when the window elapses or when it reaches maxBatchSize,
+// whichever comes first. The delegate call runs on the given executor, so a slow
+// backend does not hold up the windows that follow, nor the caller that filled a batch.
+public class BatchingInventoryService implements InventoryService, AutoCloseable {
+
+    private final InventoryService delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    // created here (and shut down by close) when no executor was passed in
+    private final ExecutorService ownExecutor;
+
+    // the batch currently being collected, guarded by "this"
+    private Map<String, CompletableFuture<Integer>> pending = new LinkedHashMap<>();
+
+    private final LongAdder requestedKeys = new LongAdder();
+    private final LongAdder dispatchedKeys = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    // batches go out on virtual threads of its own
+    public BatchingInventoryService(InventoryService delegate, Duration window, int maxBatchSize){
+        this(delegate, window, maxBatchSize, null);
+    }
+
+    public BatchingInventoryService(InventoryService delegate, Duration window, int maxBatchSize, Executor executor){
+        if(maxBatchSize < 1){
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.delegate = delegate;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+        this.ownExecutor = executor == null ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        this.executor = executor == null ? ownExecutor : executor;
+    }
+
+    @Override
+    public int getStock(String productId){
+        return join(load(productId));
+    }
+
+    @Override
+    public Map<String, Integer> getStocks(Collection<String> productIds){
+        // bulk callers join the same batches, so they are deduped against
+        // concurrent single-key callers as well
+        Map<String, CompletableFuture<Integer>> futures = new HashMap<>();
+        for(String productId : productIds){
+            futures.computeIfAbsent(productId, this::load);
+        }
+        Map<String, Integer> stocks = new HashMap<>();
+        for(Map.Entry<String, CompletableFuture<Integer>> entry : futures.entrySet()){
+            stocks.put(entry.getKey(), join(entry.getValue()));
+        }
+        return stocks;
+    }
+
+    // joins the pending batch, no thread is parked while waiting for it
+    @Override
+    public CompletableFuture<Integer> getStockAsync(String productId, Executor executor){
+        return load(productId);
+    }
+
+    public CompletableFuture<Integer> load(String productId){
+        requestedKeys.increment();
+        Map<String, CompletableFuture<Integer>> full = null;
+        CompletableFuture<Integer> future;
+
+        synchronized(this){
+            future = pending.get(productId);
+            if(future != null){
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(productId, future);
+
+            if(pending.size() == 1){
+                // first key of a new batch starts the window
+                Map<String, CompletableFuture<Integer>> batch = pending;
+                scheduler.schedule(() -> dispatchIfCurrent(batch), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            if(pending.size() >= maxBatchSize){
+                full = pending;
+                pending = new LinkedHashMap<>();
+            }
+        }
+
+        if(full != null){
+            // batch is full - no point in waiting for the window
+            dispatchAsync(full);
+        }
+        return future;
+    }
+
+    public long requestedKeyCount(){
+        return requestedKeys.sum();
+    }
+
+    public long dispatchedKeyCount(){
+        return dispatchedKeys.sum();
+    }
+
+    public long batchCount(){
+        return batches.sum();
+    }
+
+    @Override
+    public void close(){
+        scheduler.shutdown();
+        Map<String, CompletableFuture<Integer>> last;
+        synchronized(this){
+            last = pending;
+            pending = new LinkedHashMap<>();
+        }
+        if(!last.isEmpty()){
+            // on the closing thread: the executor may already be shut down
+            dispatch(last);
+        }
+        if(ownExecutor != null){
+            ownExecutor.close();
+        }
+    }
+
+    private void dispatchIfCurrent(Map<String, CompletableFuture<Integer>> batch){
+        synchronized(this){
+            if(pending != batch){
+                // already dispatched because it filled up
+                return;
+            }
+            pending = new LinkedHashMap<>();
+        }
+        dispatchAsync(batch);
+    }
+
+    // the scheduler thread only hands the batch over; the next window is not held up by this one
+    private void dispatchAsync(Map<String, CompletableFuture<Integer>> batch){
+        try{
+            executor.execute(() -> dispatch(batch));
+        } catch(RuntimeException e){
+            // rejected, e.g. the executor was shut down
+            for(CompletableFuture<Integer> future : batch.values()){
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void dispatch(Map<String, CompletableFuture<Integer>> batch){
+        batches.increment();
+        dispatchedKeys.add(batch.size());
+        List<String> keys = new ArrayList<>(batch.keySet());
+        try{
+            Map<String, Integer> stocks = delegate.getStocks(keys);
+            for(Map.Entry<String, CompletableFuture<Integer>> entry : batch.entrySet()){
+                Integer stock = stocks.get(entry.getKey());
+                if(stock != null){
+                    entry.getValue().complete(stock);
+                } else {
+                    entry.getValue().completeExceptionally(
+                        new IllegalStateException("No stock returned for product: " + entry.getKey()));
+                }
+            }
+        } catch(RuntimeException e){
+            for(CompletableFuture<Integer> future : batch.values()){
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static int join(CompletableFuture<Integer> future){
+        try{
+            return future.join();
+        } catch(CompletionException e){
+            if(e.getCause() instanceof RuntimeException cause){
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
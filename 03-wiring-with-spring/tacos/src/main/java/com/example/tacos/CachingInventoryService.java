@@ -0,0 +1,406 @@
+package com.example.tacos;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Decorator: wraps any InventoryService and keeps hot SKUs in memory.
+//
+// Bounded by entry count, every entry expires after a fixed time-to-live,
+// and eviction follows W-TinyLFU:
+//   - new entries land in a small LRU "window" (1% of capacity)
+//   - entries leaving the window compete against the LRU victim of the main
+//     area; whoever was requested more often (per the frequency sketch) stays
+//   - the main area is a segmented LRU: probation (20%) + protected (80%)
+public class CachingInventoryService implements InventoryService {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final InventoryService delegate;
+    private final long ttlNanos;
+
+    private final int maximumSize;
+    private final int windowMax;
+    private final int protectedMax;
+
+    // reads go straight to the map, the eviction policy is guarded by the lock
+    private final ConcurrentHashMap<String, Node> data = new ConcurrentHashMap<>();
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+
+    private final Node window = Node.sentinel();
+    private final Node probation = Node.sentinel();
+    private final Node protectedArea = Node.sentinel();
+    private int windowSize;
+    private int protectedSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingInventoryService(InventoryService delegate, int maximumSize, Duration timeToLive){
+        if(maximumSize < 1){
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        if(timeToLive.isNegative() || timeToLive.isZero()){
+            throw new IllegalArgumentException("timeToLive must be positive: " + timeToLive);
+        }
+        this.delegate = delegate;
+        this.ttlNanos = timeToLive.toNanos();
+        this.maximumSize = maximumSize;
+        this.windowMax = Math.max(1, maximumSize / 100);
+        this.protectedMax = (int) ((maximumSize - windowMax) * 0.8);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    @Override
+    public int getStock(String productId){
+        long now = System.nanoTime();
+        Integer cached = lookup(productId, now);
+        if(cached != null){
+            return cached;
+        }
+
+        misses.increment();
+        int stock = delegate.getStock(productId);
+        put(productId, stock, now + ttlNanos);
+        return stock;
+    }
+
+    @Override
+    public Map<String, Integer> getStocks(Collection<String> productIds){
+        Map<String, Integer> stocks = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long now = System.nanoTime();
+
+        for(String productId : productIds){
+            if(stocks.containsKey(productId)){
+                continue;
+            }
+            Integer cached = lookup(productId, now);
+            stocks.put(productId, cached);
+            if(cached == null){
+                misses.increment();
+                missing.add(productId);
+            }
+        }
+
+        // only the misses go to the delegate, in one bulk call
+        if(!missing.isEmpty()){
+            Map<String, Integer> loaded = delegate.getStocks(missing);
+            for(String productId : missing){
+                Integer stock = loaded.get(productId);
+                stocks.put(productId, stock);
+                if(stock != null){
+                    put(productId, stock, now + ttlNanos);
+                }
+            }
+        }
+        return stocks;
+    }
+
+    @Override
+    public CompletableFuture<Integer> getStockAsync(String productId, Executor executor){
+        long now = System.nanoTime();
+        Integer cached = lookup(productId, now);
+        if(cached != null){
+            // hits are answered right here, no thread hop
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        misses.increment();
+        return delegate.getStockAsync(productId, executor).thenApply(stock -> {
+            put(productId, stock, now + ttlNanos);
+            return stock;
+        });
+    }
+
+    // drop a single SKU, e.g. after its stock changed in the backing store
+    public void invalidate(String productId){
+        policyLock.lock();
+        try{
+            Node node = data.remove(productId);
+            if(node != null){
+                detach(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public long hitCount(){
+        return hits.sum();
+    }
+
+    public long missCount(){
+        return misses.sum();
+    }
+
+    public long evictionCount(){
+        return evictions.sum();
+    }
+
+    public double hitRate(){
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 1.0 : (double) h / total;
+    }
+
+    public int size(){
+        return data.size();
+    }
+
+    @Override
+    public String toString(){
+        return "CachingInventoryService[size=" + size() + ", hits=" + hitCount()
+            + ", misses=" + missCount() + ", evictions=" + evictionCount() + "]";
+    }
+
+    // null on a miss (absent or expired)
+    private Integer lookup(String productId, long now){
+        Node node = data.get(productId);
+        if(node == null || now - node.expiresAt >= 0){
+            return null;
+        }
+
+        hits.increment();
+        // hot path: if another thread holds the policy lock we simply skip
+        // recording this access - a lost sample does not hurt the sketch
+        if(policyLock.tryLock()){
+            try{
+                if(node.queue >= 0){
+                    onAccess(node);
+                }
+            } finally {
+                policyLock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    private void put(String productId, int stock, long expiresAt){
+        policyLock.lock();
+        try{
+            Node node = data.get(productId);
+            if(node != null){
+                // refresh an existing (possibly expired) entry in place
+                node.value = stock;
+                node.expiresAt = expiresAt;
+                onAccess(node);
+                return;
+            }
+
+            node = new Node(productId, stock, expiresAt);
+            data.put(productId, node);
+            sketch.increment(productId);
+            attach(node, WINDOW);
+
+            evict();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    // must hold policyLock
+    private void onAccess(Node node){
+        sketch.increment(node.key);
+        switch(node.queue){
+            case WINDOW -> {
+                detach(node);
+                attach(node, WINDOW);
+            }
+            case PROBATION -> {
+                // second hit while on probation earns a place in the protected segment
+                detach(node);
+                attach(node, PROTECTED);
+                if(protectedSize > protectedMax){
+                    Node demoted = protectedArea.next;
+                    detach(demoted);
+                    attach(demoted, PROBATION);
+                }
+            }
+            case PROTECTED -> {
+                detach(node);
+                attach(node, PROTECTED);
+            }
+            default -> { }
+        }
+    }
+
+    // must hold policyLock
+    private void evict(){
+        while(windowSize > windowMax){
+            // window overflow: its LRU entry becomes a candidate for the main area
+            Node candidate = window.next;
+            detach(candidate);
+            attach(candidate, PROBATION);
+
+            if(data.size() <= maximumSize){
+                continue;
+            }
+
+            Node victim = probation.next;
+            if(victim == candidate){
+                remove(candidate);
+            } else if(sketch.frequency(candidate.key) > sketch.frequency(victim.key)){
+                remove(victim);
+            } else {
+                remove(candidate);
+            }
+        }
+
+        // protected segment may hold more than its share early on, trim from probation first
+        while(data.size() > maximumSize){
+            remove(probation.next != probation ? probation.next : protectedArea.next);
+        }
+    }
+
+    private void remove(Node node){
+        detach(node);
+        data.remove(node.key, node);
+        evictions.increment();
+    }
+
+    private void attach(Node node, int queue){
+        Node head = switch(queue){
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            default -> protectedArea;
+        };
+        if(queue == WINDOW){
+            windowSize++;
+        } else if(queue == PROTECTED){
+            protectedSize++;
+        }
+        node.queue = queue;
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+    }
+
+    private void detach(Node node){
+        if(node.queue == WINDOW){
+            windowSize--;
+        } else if(node.queue == PROTECTED){
+            protectedSize--;
+        }
+        if(node.prev != null){
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.queue = -1;
+    }
+
+    private static final class Node {
+        final String key;
+        volatile int value;
+        volatile long expiresAt;
+
+        // guarded by policyLock
+        Node prev;
+        Node next;
+        volatile int queue;
+
+        Node(String key, int value, long expiresAt){
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.queue = -1;
+        }
+
+        static Node sentinel(){
+            Node head = new Node(null, 0, 0);
+            head.prev = head;
+            head.next = head;
+            return head;
+        }
+    }
+
+    // Count-Min sketch with 4-bit counters, 16 counters packed in each long.
+    // All counters are halved once enough samples were seen, so old popularity fades.
+    static final class FrequencySketch {
+
+        private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int size;
+
+        FrequencySketch(int maximumSize){
+            int length = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1;
+            this.table = new long[length];
+            this.tableMask = length - 1;
+            this.sampleSize = 10 * Math.max(maximumSize, 16);
+        }
+
+        int frequency(String key){
+            int hash = spread(key.hashCode());
+            int min = Integer.MAX_VALUE;
+            for(int i = 0; i < 4; i++){
+                int index = indexOf(hash, i);
+                int offset = counterOffset(hash, i);
+                int count = (int) ((table[index] >>> offset) & 0xfL);
+                min = Math.min(min, count);
+            }
+            return min;
+        }
+
+        void increment(String key){
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for(int i = 0; i < 4; i++){
+                int index = indexOf(hash, i);
+                int offset = counterOffset(hash, i);
+                long mask = 0xfL << offset;
+                if((table[index] & mask) != mask){
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if(added && ++size == sampleSize){
+                reset();
+            }
+        }
+
+        private void reset(){
+            for(int i = 0; i < table.length; i++){
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size /= 2;
+        }
+
+        private int indexOf(int hash, int i){
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & tableMask;
+        }
+
+        // each row uses its own 4-bit nibble inside the selected long
+        private static int counterOffset(int hash, int i){
+            return (((hash >>> (i << 3)) & 3) << 2) + (i << 4) & 63;
+        }
+
+        private static int spread(int x){
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+}
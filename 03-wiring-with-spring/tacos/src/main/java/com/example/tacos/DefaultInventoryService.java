@@ -1,9 +1,39 @@
 package com.example.tacos;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 public class DefaultInventoryService implements InventoryService {
+
+    // null = no real store attached, every SKU reports the demo value 42
+    private final OffHeapStockTable stockTable;
+
+    public DefaultInventoryService(){
+        this(null);
+    }
+
+    // backed by an off-heap SKU -> stock table (unknown SKUs have 0 stock)
+    public DefaultInventoryService(OffHeapStockTable stockTable){
+        this.stockTable = stockTable;
+    }
     
     @Override
     public int getStock(String productId){
-        return 42;
+        if(stockTable == null){
+            return 42;
+        }
+        int stock = stockTable.get(productId);
+        return stock < 0 ? 0 : stock;
+    }
+
+    @Override
+    public Map<String, Integer> getStocks(Collection<String> productIds){
+        // mimicking a single "where id in (...)" round trip
+        Map<String, Integer> stocks = new HashMap<>();
+        for(String productId : productIds){
+            stocks.put(productId, getStock(productId));
+        }
+        return stocks;
     }
 }
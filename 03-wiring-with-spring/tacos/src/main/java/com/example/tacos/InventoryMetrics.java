@@ -0,0 +1,62 @@
+package com.example.tacos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Registry of call latencies for InventoryService implementations,
+// keyed by "<implementation class>.<method>".
+public class InventoryMetrics {
+
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    // looked up once per wrapped bean and method, not per call
+    public Timer timer(Class<?> implementation, String method){
+        return timers.computeIfAbsent(implementation.getSimpleName() + "." + method, Timer::new);
+    }
+
+    public List<Stats> snapshot(){
+        List<Stats> stats = new ArrayList<>();
+        for(Timer timer : timers.values()){
+            stats.add(timer.stats());
+        }
+        stats.sort((a, b) -> a.name().compareTo(b.name()));
+        return stats;
+    }
+
+    public static final class Timer {
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        Timer(String name){
+            this.name = name;
+        }
+
+        public void record(long nanos){
+            histogram.record(nanos);
+        }
+
+        public void recordError(long nanos){
+            histogram.record(nanos);
+            errors.increment();
+        }
+
+        Stats stats(){
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            return new Stats(name, snapshot.count(), errors.sum(),
+                snapshot.percentile(50), snapshot.percentile(99), snapshot.percentile(99.9), snapshot.max());
+        }
+    }
+
+    // latencies in nanoseconds
+    public record Stats(String name, long calls, long errors, long p50, long p99, long p999, long max) {
+
+        @Override
+        public String toString(){
+            return String.format("%s calls=%d errors=%d p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                name, calls, errors, p50 / 1e3, p99 / 1e3, p999 / 1e3, max / 1e3);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.tacos;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+// Wraps every InventoryService bean in the context with a timing decorator,
+// so no @Bean method has to remember to do it.
+//
+// Register it from a static @Bean method: post processors are created before
+// the other beans, and a static method keeps AppConfig itself out of that early phase.
+public class InventoryMetricsPostProcessor implements BeanPostProcessor {
+
+    private final InventoryMetrics metrics = new InventoryMetrics();
+
+    public InventoryMetrics metrics(){
+        return metrics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName){
+        if(bean instanceof TimedInventoryService){
+            return bean;
+        }
+        if(bean instanceof StockReservationService reservations){
+            return new TimedStockReservationService(reservations, metrics);
+        }
+        if(bean instanceof InventoryService inventory){
+            return new TimedInventoryService(inventory, metrics);
+        }
+        return bean;
+    }
+}
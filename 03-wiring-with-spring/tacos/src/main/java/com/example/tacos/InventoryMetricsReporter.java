@@ -0,0 +1,48 @@
+package com.example.tacos;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+// Logs the InventoryMetrics snapshot at a fixed interval (cumulative since startup).
+public class InventoryMetricsReporter implements AutoCloseable {
+
+    private static final Log log = LogFactory.getLog(InventoryMetricsReporter.class);
+
+    private final InventoryMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+
+    // reports every interval until close()
+    public static InventoryMetricsReporter start(InventoryMetrics metrics, Duration interval){
+        InventoryMetricsReporter reporter = new InventoryMetricsReporter(metrics);
+        long millis = interval.toMillis();
+        reporter.scheduler.scheduleAtFixedRate(reporter::report, millis, millis, TimeUnit.MILLISECONDS);
+        return reporter;
+    }
+
+    private InventoryMetricsReporter(InventoryMetrics metrics){
+        this.metrics = metrics;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void report(){
+        for(InventoryMetrics.Stats stats : metrics.snapshot()){
+            if(stats.calls() > 0){
+                log.info(stats);
+            }
+        }
+    }
+
+    @Override
+    public void close(){
+        scheduler.shutdownNow();
+    }
+}
@@ -1,8 +1,30 @@
 package com.example.tacos;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 public interface InventoryService {
 
     int getStock(String productId);
+
+    // bulk lookup - implementations backed by a real store should override this
+    // with a single round trip; the default just falls back to one call per id
+    default Map<String, Integer> getStocks(Collection<String> productIds){
+        Map<String, Integer> stocks = new HashMap<>();
+        for(String productId : productIds){
+            stocks.putIfAbsent(productId, getStock(productId));
+        }
+        return stocks;
+    }
+
+    // non-blocking lookup - the default runs the blocking getStock on the given
+    // executor; implementations that can answer without blocking override it
+    default CompletableFuture<Integer> getStockAsync(String productId, Executor executor){
+        return CompletableFuture.supplyAsync(() -> getStock(productId), executor);
+    }
     
 }
 
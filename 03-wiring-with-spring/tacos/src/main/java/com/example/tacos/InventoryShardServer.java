@@ -0,0 +1,118 @@
+package com.example.tacos;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+// Serves one InventoryService shard over TCP - the local stand-in for an inventory node.
+//
+// Start one per shard (each in its own JVM) and point a RemoteInventoryService at it;
+// a ShardedInventoryService can then spread SKUs over processes instead of threads.
+//
+// Protocol, per request on a kept-alive connection:
+//   -> int count (1..MAX_BATCH), then count x UTF productId
+//   <- count x int stock, in request order
+// A count out of range or a failed lookup closes the connection; the client sees
+// it as an IOException.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.tacos.InventoryShardServer" -Dexec.args="7001"
+//      optional second arg: a stock snapshot written by OffHeapStockTable.save
+public class InventoryShardServer implements AutoCloseable {
+
+    // SKUs per request; RemoteInventoryService splits bigger lookups
+    public static final int MAX_BATCH = 10_000;
+
+    private static final Log log = LogFactory.getLog(InventoryShardServer.class);
+
+    private final InventoryService inventoryService;
+    private final ServerSocket serverSocket;
+
+    public InventoryShardServer(InventoryService inventoryService, int port) throws IOException{
+        this.inventoryService = inventoryService;
+        this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+    }
+
+    public int port(){
+        return serverSocket.getLocalPort();
+    }
+
+    // accepts connections until closed; every connection gets its own virtual thread
+    public void serve(){
+        while(!serverSocket.isClosed()){
+            try{
+                Socket socket = serverSocket.accept();
+                Thread.ofVirtual().name("shard-connection").start(() -> handle(socket));
+            } catch(IOException e){
+                if(!serverSocket.isClosed()){
+                    log.warn("accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public InventoryShardServer start(){
+        Thread.ofPlatform().daemon().name("shard-acceptor-" + port()).start(this::serve);
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException{
+        serverSocket.close();
+    }
+
+    private void handle(Socket socket){
+        try(socket;
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))){
+            socket.setTcpNoDelay(true);
+            while(true){
+                int count;
+                try{
+                    count = in.readInt();
+                } catch(EOFException e){
+                    return;
+                }
+                // a bad or hostile client must not make the shard allocate for it
+                if(count < 1 || count > MAX_BATCH){
+                    throw new IOException("Request for " + count + " SKUs, expected 1.." + MAX_BATCH);
+                }
+                List<String> productIds = new ArrayList<>(count);
+                for(int i = 0; i < count; i++){
+                    productIds.add(in.readUTF());
+                }
+                Map<String, Integer> stocks = inventoryService.getStocks(productIds);
+                for(String productId : productIds){
+                    out.writeInt(stocks.get(productId));
+                }
+                out.flush();
+            }
+        } catch(IOException | RuntimeException e){
+            log.warn("shard connection closed: " + e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException{
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7001;
+        InventoryService inventoryService = args.length > 1
+            ? new DefaultInventoryService(OffHeapStockTable.load(Path.of(args[1])))
+            : new DefaultInventoryService();
+
+        try(InventoryShardServer server = new InventoryShardServer(inventoryService, port)){
+            System.out.println("inventory shard listening on 127.0.0.1:" + server.port());
+            server.serve();
+        }
+    }
+}
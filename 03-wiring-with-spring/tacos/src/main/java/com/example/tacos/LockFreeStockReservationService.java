@@ -0,0 +1,275 @@
+package com.example.tacos;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Reservation engine without locks on the hot path.
+//
+// Every SKU has its own counter of available units, decremented with CAS and
+// never below zero - so the sum of all successful reservations can never
+// exceed the stock (no oversell).
+//
+// A flash-sale SKU hammered by many cores makes that single CAS the bottleneck.
+// After repeated CAS failures the counter is "inflated": the available units
+// are spread over several cache-line padded stripes, and each thread starts
+// at its own stripe. Each stripe stays >= 0 on its own, so the no-oversell
+// guarantee is unchanged. A reservation larger than the thread's stripe
+// gathers units from the others and puts them back if it still falls short,
+// so while stock is nearly gone a reserve may fail even though another
+// thread's in-flight give-back would have made it fit.
+//
+// Each reservation gets an id, and release / commit settle it by that id exactly
+// once: releasing the same cart twice would otherwise hand back units that were
+// never held and open the door to overselling.
+//
+// Initial stock per SKU is read once from the delegate, on first use.
+public class LockFreeStockReservationService implements StockReservationService {
+
+    private static final int INFLATE_AFTER_FAILURES = 4;
+    // longs per stripe - keeps every stripe on its own 64-byte cache line
+    private static final int PAD = 8;
+
+    private final InventoryService delegate;
+    private final int stripes;
+    private final ConcurrentHashMap<String, SkuCounter> counters = new ConcurrentHashMap<>();
+    // outstanding reservations by id; settling one removes it
+    private final ConcurrentHashMap<Long, Reservation> reservations = new ConcurrentHashMap<>();
+    private final AtomicLong reservationIds = new AtomicLong(NO_RESERVATION);
+
+    public LockFreeStockReservationService(InventoryService delegate){
+        this(delegate, Runtime.getRuntime().availableProcessors());
+    }
+
+    public LockFreeStockReservationService(InventoryService delegate, int stripes){
+        if(stripes < 1){
+            throw new IllegalArgumentException("stripes must be positive: " + stripes);
+        }
+        this.delegate = delegate;
+        // power of two, so a thread's stripe is a simple mask
+        int n = 1;
+        while(n < stripes){
+            n <<= 1;
+        }
+        this.stripes = n;
+    }
+
+    @Override
+    public int getStock(String productId){
+        return (int) counter(productId).available();
+    }
+
+    @Override
+    public long reserve(String productId, int quantity){
+        checkQuantity(quantity);
+        SkuCounter counter = counter(productId);
+        if(!counter.take(quantity)){
+            return NO_RESERVATION;
+        }
+        counter.reserved.add(quantity);
+        long reservationId = reservationIds.incrementAndGet();
+        reservations.put(reservationId, new Reservation(counter, quantity));
+        return reservationId;
+    }
+
+    @Override
+    public void release(long reservationId){
+        Reservation reservation = settle(reservationId);
+        reservation.counter.reserved.add(-reservation.quantity);
+        reservation.counter.give(reservation.quantity);
+    }
+
+    @Override
+    public void commit(long reservationId){
+        Reservation reservation = settle(reservationId);
+        reservation.counter.reserved.add(-reservation.quantity);
+        reservation.counter.sold.add(reservation.quantity);
+    }
+
+    @Override
+    public int getReserved(String productId){
+        return (int) counter(productId).reserved.sum();
+    }
+
+    public int getSold(String productId){
+        return (int) counter(productId).sold.sum();
+    }
+
+    // new units arriving from the warehouse
+    public void restock(String productId, int quantity){
+        checkQuantity(quantity);
+        counter(productId).give(quantity);
+    }
+
+    public boolean isStriped(String productId){
+        return counter(productId).cells != null;
+    }
+
+    // removing the entry is what makes release / commit happen at most once
+    private Reservation settle(long reservationId){
+        Reservation reservation = reservations.remove(reservationId);
+        if(reservation == null){
+            throw new IllegalStateException("Unknown or already settled reservation: " + reservationId);
+        }
+        return reservation;
+    }
+
+    private SkuCounter counter(String productId){
+        SkuCounter counter = counters.get(productId);
+        if(counter == null){
+            counter = counters.computeIfAbsent(productId, id -> new SkuCounter(delegate.getStock(id)));
+        }
+        return counter;
+    }
+
+    private static void checkQuantity(int quantity){
+        if(quantity <= 0){
+            throw new IllegalArgumentException("quantity must be positive: " + quantity);
+        }
+    }
+
+    private static int threadStripe(int mask){
+        long id = Thread.currentThread().threadId();
+        id ^= id >>> 33;
+        id *= 0xff51afd7ed558ccdL;
+        id ^= id >>> 33;
+        return (int) id & mask;
+    }
+
+    private record Reservation(SkuCounter counter, int quantity) { }
+
+    private final class SkuCounter {
+
+        // available units before inflation; afterwards whatever was left in flight
+        final AtomicLong base;
+        // null until this SKU turns hot
+        volatile AtomicLongArray cells;
+
+        final LongAdder reserved = new LongAdder();
+        final LongAdder sold = new LongAdder();
+
+        SkuCounter(long initial){
+            this.base = new AtomicLong(initial);
+        }
+
+        long available(){
+            long total = base.get();
+            AtomicLongArray cs = cells;
+            if(cs != null){
+                for(int i = 0; i < stripes; i++){
+                    total += cs.get(i * PAD);
+                }
+            }
+            return total;
+        }
+
+        boolean take(int quantity){
+            AtomicLongArray cs = cells;
+            if(cs == null){
+                int failures = 0;
+                while(true){
+                    long current = base.get();
+                    if(current < quantity){
+                        // base may have been drained into freshly created stripes
+                        cs = cells;
+                        if(cs == null){
+                            return false;
+                        }
+                        break;
+                    }
+                    if(base.compareAndSet(current, current - quantity)){
+                        return true;
+                    }
+                    if(++failures >= INFLATE_AFTER_FAILURES){
+                        cs = inflate();
+                        break;
+                    }
+                }
+            }
+            return takeStriped(cs, quantity);
+        }
+
+        void give(int quantity){
+            AtomicLongArray cs = cells;
+            if(cs == null){
+                base.addAndGet(quantity);
+            } else {
+                cs.addAndGet(threadStripe(stripes - 1) * PAD, quantity);
+            }
+        }
+
+        private boolean takeStriped(AtomicLongArray cs, int quantity){
+            int start = threadStripe(stripes - 1);
+
+            // fast path: own stripe covers it
+            int own = start * PAD;
+            long current;
+            while((current = cs.get(own)) >= quantity){
+                if(cs.compareAndSet(own, current, current - quantity)){
+                    return true;
+                }
+            }
+
+            // slow path: gather from all stripes (and leftover base), give back on shortfall
+            long needed = quantity;
+            for(int i = 0; i < stripes && needed > 0; i++){
+                int at = ((start + i) & (stripes - 1)) * PAD;
+                needed -= drain(cs, at, needed);
+            }
+            if(needed > 0){
+                needed -= drainBase(needed);
+            }
+            if(needed > 0){
+                long taken = quantity - needed;
+                if(taken > 0){
+                    cs.addAndGet(own, taken);
+                }
+                return false;
+            }
+            return true;
+        }
+
+        private long drain(AtomicLongArray cs, int at, long wanted){
+            while(true){
+                long current = cs.get(at);
+                if(current <= 0){
+                    return 0;
+                }
+                long take = Math.min(current, wanted);
+                if(cs.compareAndSet(at, current, current - take)){
+                    return take;
+                }
+            }
+        }
+
+        private long drainBase(long wanted){
+            while(true){
+                long current = base.get();
+                if(current <= 0){
+                    return 0;
+                }
+                long take = Math.min(current, wanted);
+                if(base.compareAndSet(current, current - take)){
+                    return take;
+                }
+            }
+        }
+
+        private AtomicLongArray inflate(){
+            synchronized(this){
+                if(cells == null){
+                    AtomicLongArray cs = new AtomicLongArray(stripes * PAD);
+                    cells = cs;
+                    // move whatever base holds now into the stripes, evenly
+                    long moved = base.getAndSet(0);
+                    long share = moved / stripes;
+                    for(int i = 0; i < stripes; i++){
+                        cs.addAndGet(i * PAD, i == 0 ? share + moved % stripes : share);
+                    }
+                }
+                return cells;
+            }
+        }
+    }
+}
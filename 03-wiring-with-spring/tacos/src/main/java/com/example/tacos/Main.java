@@ -1,6 +1,12 @@
 package com.example.tacos;
 
-import org.springframework.context.ApplicationContext;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
 
 import org.springframework.context.annotation.*;
 
@@ -8,13 +14,48 @@ import org.springframework.context.annotation.*;
 public class Main{
 
 	public static void main(String[] args){
+		// --aot: use the wiring generated at build time (AppConfig__BeanWiring)
+		// instead of letting Spring process AppConfig at startup
+		boolean aot = Arrays.asList(args).contains("--aot");
+
 		// Bootstrap the Spring IoC container
-		ApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class);
+		ConfigurableApplicationContext context = aot ? generatedContext() : new AnnotationConfigApplicationContext(AppConfig.class);
 
 		// Ask the container for the bean
 		ProductService productService = context.getBean(ProductService.class);
+
+		// --startup-time: report JVM start -> first getBean, then quit
+		if(Arrays.asList(args).contains("--startup-time")){
+			System.out.println("startup-ms " + ManagementFactory.getRuntimeMXBean().getUptime());
+			context.close();
+			return;
+		}
+
 		productService.printProductInfo("SKU-101");
 
+		// a page of products - served by a single bulk lookup
+		productService.printProductInfo(List.of("SKU-101", "SKU-102", "SKU-103"));
+
+		// same page, one virtual thread per lookup
+		productService.printProductInfoAsync(List.of("SKU-104", "SKU-105", "SKU-106"));
+
+	}
+
+	// no classpath scanning, no @Configuration parsing, no CGLIB -
+	// just the bean registrations the annotation processor wrote out
+	@SuppressWarnings("unchecked")
+	static GenericApplicationContext generatedContext(){
+		GenericApplicationContext context = new GenericApplicationContext();
+		try{
+			// looked up by name so Main still compiles in an IDE without annotation processing
+			Class<?> wiring = Class.forName(AppConfig.class.getName() + "__BeanWiring");
+			((ApplicationContextInitializer<GenericApplicationContext>) wiring.getDeclaredConstructor().newInstance())
+				.initialize(context);
+		} catch(ReflectiveOperationException e){
+			throw new IllegalStateException("Generated wiring not found - was the project built with Maven?", e);
+		}
+		context.refresh();
+		return context;
 	}
 
-}
\ No newline at end of file
+}
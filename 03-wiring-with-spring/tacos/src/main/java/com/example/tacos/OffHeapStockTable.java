@@ -0,0 +1,322 @@
+package com.example.tacos;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// SKU -> stock count table that lives outside the Java heap.
+//
+// A HashMap<String, Integer> pays for a String, an Integer and a Node per SKU.
+// Here each SKU costs one 16-byte slot plus its key bytes, both in direct
+// (or memory-mapped) buffers, so tens of millions of entries add nothing to GC.
+//
+// slot layout (open addressing, linear probing):
+//   int hash | int keyOffset | int keyLength | int stock      (hash 0 = empty)
+// key bytes are appended to a separate arena as Latin-1.
+//
+// Writers are serialized, readers never lock: a slot's hash is published last
+// with release semantics, so a reader that sees the hash also sees the key.
+// Lookups hash with String.hashCode() (cached by String) and compare key bytes
+// in place - no allocation on the read path.
+public class OffHeapStockTable {
+
+    private static final int SLOT_BYTES = 16;
+    private static final int HASH = 0;
+    private static final int KEY_OFFSET = 4;
+    private static final int KEY_LENGTH = 8;
+    private static final int STOCK = 12;
+
+    private static final int MAGIC = 0x53544b31; // "STK1"
+    private static final int HEADER_BYTES = 32;
+    private static final float MAX_LOAD = 0.7f;
+    // largest power of two whose slot array still fits one ByteBuffer
+    private static final int MAX_CAPACITY = Integer.highestOneBit(Integer.MAX_VALUE / SLOT_BYTES);
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    // readers grab the current view once per lookup
+    private volatile Table table;
+
+    public OffHeapStockTable(int expectedEntries){
+        long slots = (long) Math.ceil(Math.max(expectedEntries, 16) / (double) MAX_LOAD);
+        // one ByteBuffer holds at most 2 GB of slots: 2^26 of them, ~47M entries
+        if(slots > MAX_CAPACITY){
+            throw new IllegalArgumentException("Stock table cannot hold " + expectedEntries + " entries; at most "
+                + (int) (MAX_CAPACITY * MAX_LOAD) + " fit in " + MAX_CAPACITY + " slots");
+        }
+        int capacity = tableSizeFor((int) slots);
+        // ~16 key bytes per SKU to start with; the arena grows on demand up to 2 GB
+        int arenaBytes = (int) Math.min(Integer.MAX_VALUE, Math.max(expectedEntries, 16) * 16L);
+        this.table = new Table(
+            ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder()),
+            ByteBuffer.allocateDirect(arenaBytes).order(ByteOrder.nativeOrder()),
+            capacity, 0, 0);
+    }
+
+    private OffHeapStockTable(Table table){
+        this.table = table;
+    }
+
+    // returns -1 if the SKU is unknown
+    public int get(String productId){
+        Table t = table;
+        int hash = hash(productId);
+        int mask = t.capacity - 1;
+        int index = hash & mask;
+        while(true){
+            int at = index * SLOT_BYTES;
+            int slotHash = (int) INT.getAcquire(t.slots, at + HASH);
+            if(slotHash == 0){
+                return -1;
+            }
+            if(slotHash == hash && keyEquals(t, at, productId)){
+                return (int) INT.getAcquire(t.slots, at + STOCK);
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public boolean contains(String productId){
+        return get(productId) >= 0;
+    }
+
+    public synchronized void put(String productId, int stock){
+        if(stock < 0){
+            throw new IllegalArgumentException("stock must not be negative: " + stock);
+        }
+        Table t = table;
+        int hash = hash(productId);
+        int mask = t.capacity - 1;
+        int index = hash & mask;
+        while(true){
+            int at = index * SLOT_BYTES;
+            int slotHash = (int) INT.get(t.slots, at + HASH);
+            if(slotHash == 0){
+                break;
+            }
+            if(slotHash == hash && keyEquals(t, at, productId)){
+                INT.setRelease(t.slots, at + STOCK, stock);
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        // new SKU
+        if(t.size + 1 > t.capacity * MAX_LOAD){
+            t = rehash(t, t.capacity * 2);
+        }
+        int keyOffset = appendKey(productId);
+        t = table;
+        insert(t, hash, keyOffset, productId.length(), stock);
+        t.size++;
+    }
+
+    public int size(){
+        return table.size;
+    }
+
+    // off-heap bytes in use (slots + key arena)
+    public long memoryBytes(){
+        Table t = table;
+        return (long) t.capacity * SLOT_BYTES + t.arena.capacity();
+    }
+
+    // Writes a snapshot: header, slot array, key arena - exactly the in-memory
+    // layout, so loading is just a memory map.
+    public synchronized void save(Path file){
+        Table t = table;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+        header.putInt(MAGIC).putInt(t.capacity).putInt(t.size).putInt(t.arenaUsed);
+        header.putInt(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 1 : 0);
+        header.clear();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try(FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            writeFully(channel, header);
+            writeFully(channel, t.slots.duplicate().clear());
+            writeFully(channel, t.arena.duplicate().clear().limit(t.arenaUsed));
+            channel.force(true);
+        } catch(IOException e){
+            throw new UncheckedIOException("Could not write stock snapshot " + file, e);
+        }
+
+        try{
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(IOException e){
+            throw new UncheckedIOException("Could not replace stock snapshot " + file, e);
+        }
+    }
+
+    // Maps a snapshot copy-on-write: pages are read lazily by the OS, and later
+    // puts change only this process' copy until the next save(). A copy-on-write
+    // mapping needs a writable file; a read-only snapshot is mapped read-only and
+    // only its slot array (the part puts write into) is copied into memory.
+    public static OffHeapStockTable load(Path file){
+        boolean writable = Files.isWritable(file);
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_ONLY;
+        try(FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)){
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+            while(header.hasRemaining() && channel.read(header) >= 0){ }
+            header.flip();
+            if(header.remaining() < HEADER_BYTES || header.getInt() != MAGIC){
+                throw new IllegalStateException("Not a stock snapshot: " + file);
+            }
+            int capacity = header.getInt();
+            int size = header.getInt();
+            int arenaUsed = header.getInt();
+            boolean littleEndian = header.getInt() == 1;
+            if(littleEndian != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)){
+                throw new IllegalStateException("Stock snapshot was written on a machine with a different byte order: " + file);
+            }
+            // lookups mask with capacity - 1 and stop at the first empty slot
+            if(capacity <= 0 || Integer.bitCount(capacity) != 1 || capacity > MAX_CAPACITY){
+                throw new IllegalStateException("Corrupt stock snapshot " + file + ": capacity " + capacity
+                    + " is not a power of two up to " + MAX_CAPACITY);
+            }
+            if(size < 0 || size >= capacity || arenaUsed < 0){
+                throw new IllegalStateException("Corrupt stock snapshot " + file + ": " + size + " entries and "
+                    + arenaUsed + " key bytes in " + capacity + " slots");
+            }
+            long slotBytes = (long) capacity * SLOT_BYTES;
+            long expectedBytes = HEADER_BYTES + slotBytes + arenaUsed;
+            if(channel.size() != expectedBytes){
+                throw new IllegalStateException("Corrupt stock snapshot " + file + ": " + channel.size()
+                    + " bytes, but the header describes " + expectedBytes);
+            }
+
+            ByteBuffer slots = channel.map(mode, HEADER_BYTES, slotBytes).order(ByteOrder.nativeOrder());
+            if(!writable){
+                slots = ByteBuffer.allocateDirect((int) slotBytes).order(ByteOrder.nativeOrder())
+                    .put(0, slots, 0, (int) slotBytes);
+            }
+            // puts never write into the arena in place: the first new key moves it to a fresh buffer
+            ByteBuffer arena = arenaUsed == 0
+                ? ByteBuffer.allocateDirect(256).order(ByteOrder.nativeOrder())
+                : channel.map(mode, HEADER_BYTES + slotBytes, arenaUsed).order(ByteOrder.nativeOrder());
+            return new OffHeapStockTable(new Table(slots, arena, capacity, size, arenaUsed));
+        } catch(IOException e){
+            throw new UncheckedIOException("Could not load stock snapshot " + file, e);
+        }
+    }
+
+    // must hold the monitor
+    private int appendKey(String productId){
+        Table t = table;
+        int length = productId.length();
+        if((long) t.arenaUsed + length > Integer.MAX_VALUE){
+            throw new IllegalStateException("Key arena is full (2 GB)");
+        }
+        if(t.arenaUsed + length > t.arena.capacity()){
+            int newCapacity = (int) Math.min(Integer.MAX_VALUE, Math.max((long) t.arena.capacity() * 2, (long) t.arenaUsed + length));
+            ByteBuffer arena = ByteBuffer.allocateDirect(newCapacity).order(ByteOrder.nativeOrder());
+            arena.put(0, t.arena, 0, t.arenaUsed);
+            t = new Table(t.slots, arena, t.capacity, t.size, t.arenaUsed);
+            table = t;
+        }
+        int offset = t.arenaUsed;
+        for(int i = 0; i < length; i++){
+            char c = productId.charAt(i);
+            if(c > 0xff){
+                throw new IllegalArgumentException("Product id must be Latin-1: " + productId);
+            }
+            t.arena.put(offset + i, (byte) c);
+        }
+        t.arenaUsed += length;
+        return offset;
+    }
+
+    // must hold the monitor
+    private Table rehash(Table old, int newCapacity){
+        if((long) newCapacity * SLOT_BYTES > Integer.MAX_VALUE){
+            throw new IllegalStateException("Stock table cannot grow beyond " + old.capacity + " slots");
+        }
+        Table t = new Table(
+            ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES).order(ByteOrder.nativeOrder()),
+            old.arena, newCapacity, old.size, old.arenaUsed);
+        for(int i = 0; i < old.capacity; i++){
+            int at = i * SLOT_BYTES;
+            int hash = old.slots.getInt(at + HASH);
+            if(hash != 0){
+                insert(t, hash, old.slots.getInt(at + KEY_OFFSET), old.slots.getInt(at + KEY_LENGTH),
+                    (int) INT.getAcquire(old.slots, at + STOCK));
+            }
+        }
+        // readers still holding the old table keep seeing a consistent (old) view
+        table = t;
+        return t;
+    }
+
+    private static void insert(Table t, int hash, int keyOffset, int keyLength, int stock){
+        int mask = t.capacity - 1;
+        int index = hash & mask;
+        while(t.slots.getInt(index * SLOT_BYTES + HASH) != 0){
+            index = (index + 1) & mask;
+        }
+        int at = index * SLOT_BYTES;
+        t.slots.putInt(at + KEY_OFFSET, keyOffset);
+        t.slots.putInt(at + KEY_LENGTH, keyLength);
+        INT.setRelease(t.slots, at + STOCK, stock);
+        INT.setRelease(t.slots, at + HASH, hash);
+    }
+
+    private static boolean keyEquals(Table t, int at, String productId){
+        int length = t.slots.getInt(at + KEY_LENGTH);
+        if(length != productId.length()){
+            return false;
+        }
+        int offset = t.slots.getInt(at + KEY_OFFSET);
+        if(offset + length > t.arena.capacity()){
+            // inserted after this reader picked up its (older) arena - treat as absent
+            return false;
+        }
+        for(int i = 0; i < length; i++){
+            if((t.arena.get(offset + i) & 0xff) != productId.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(String productId){
+        int h = productId.hashCode() * 0x9e3779b9;
+        h ^= h >>> 16;
+        return h == 0 ? 1 : h;
+    }
+
+    private static int tableSizeFor(int n){
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException{
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+    }
+
+    private static final class Table {
+        final ByteBuffer slots;
+        final ByteBuffer arena;
+        final int capacity;
+        int size;
+        int arenaUsed;
+
+        Table(ByteBuffer slots, ByteBuffer arena, int capacity, int size, int arenaUsed){
+            this.slots = slots;
+            this.arena = arena;
+            this.capacity = capacity;
+            this.size = size;
+            this.arenaUsed = arenaUsed;
+        }
+    }
+}
@@ -1,17 +1,151 @@
 package com.example.tacos;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 public class ProductService {
 
+    // shown instead of a number for a product the inventory returned no stock for
+    static final String UNAVAILABLE = "unavailable";
+
     private final InventoryService inventoryService;
+    // one writer for every report, so its buffers are reused from call to call
+    private final StockReportWriter reportWriter;
+
+    // async mode only - null when constructed with just the InventoryService
+    private final Executor lookupExecutor;
+    private final Semaphore inFlight;
+    private final Duration deadline;
 
     // dependency injection using constructor
     public ProductService(InventoryService inventoryService){
         this.inventoryService = inventoryService;
+        this.reportWriter = new StockReportWriter(inventoryService, 4096);
+        this.lookupExecutor = null;
+        this.inFlight = null;
+        this.deadline = null;
+    }
+
+    // async mode: lookups run on lookupExecutor (meant to be virtual-thread-per-task),
+    // at most maxInFlight at a time, and each one gives up after deadline
+    public ProductService(InventoryService inventoryService, Executor lookupExecutor, int maxInFlight, Duration deadline){
+        if(maxInFlight < 1){
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.inventoryService = inventoryService;
+        this.reportWriter = new StockReportWriter(inventoryService, 4096);
+        this.lookupExecutor = lookupExecutor;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.deadline = deadline;
     }
 
     public void printProductInfo(String productId){
         int stock = inventoryService.getStock(productId);
         System.out.println("Product: " + productId + " | Stock: " + stock);
     }
+
+    // a whole page of products - one bulk lookup instead of one per product
+    public void printProductInfo(List<String> productIds){
+        Map<String, Integer> stocks = inventoryService.getStocks(productIds);
+        for(String productId : productIds){
+            Integer stock = stocks.get(productId);
+            System.out.println("Product: " + productId + " | Stock: " + (stock == null ? UNAVAILABLE : stock));
+        }
+    }
+
+    // report mode: one line per product streamed into the channel, no per-line Strings
+    public long writeStockReport(Iterator<String> productIds, WritableByteChannel out) throws IOException{
+        return reportWriter.write(productIds, out);
+    }
+
+    public CompletableFuture<Integer> getStockAsync(String productId){
+        if(lookupExecutor == null){
+            throw new IllegalStateException("ProductService was created without a lookup executor");
+        }
+        long giveUpAt = System.nanoTime() + deadline.toNanos();
+        CompletableFuture<Integer> lookup;
+        if(inFlight.tryAcquire()){
+            lookup = startLookup(productId);
+        } else {
+            // over the limit: park a virtual thread (not the caller) until a slot frees up
+            lookup = CompletableFuture.supplyAsync(() -> startLookupBy(productId, giveUpAt), lookupExecutor)
+                .thenCompose(started -> started);
+        }
+        return lookup.orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    // waits for a permit until giveUpAt; a lookup the caller no longer waits for is never started
+    private CompletableFuture<Integer> startLookupBy(String productId, long giveUpAt){
+        try{
+            if(!inFlight.tryAcquire(giveUpAt - System.nanoTime(), TimeUnit.NANOSECONDS)){
+                return CompletableFuture.failedFuture(
+                    new TimeoutException("No lookup slot for " + productId + " before the deadline"));
+            }
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        if(System.nanoTime() - giveUpAt >= 0){
+            inFlight.release();
+            return CompletableFuture.failedFuture(
+                new TimeoutException("Lookup slot for " + productId + " freed after the deadline"));
+        }
+        return startLookup(productId);
+    }
+
+    // caller holds a permit - it is handed back however the lookup ends
+    private CompletableFuture<Integer> startLookup(String productId){
+        CompletableFuture<Integer> lookup;
+        try{
+            lookup = inventoryService.getStockAsync(productId, lookupExecutor);
+        } catch(RuntimeException e){
+            inFlight.release();
+            throw e;
+        }
+        return lookup.whenComplete((stock, error) -> inFlight.release());
+    }
+
+    // fans out one lookup per product; products that fail or miss the
+    // deadline are left out of the result
+    public Map<String, Integer> getStocksAsync(List<String> productIds){
+        Map<String, CompletableFuture<Integer>> futures = new LinkedHashMap<>();
+        for(String productId : productIds){
+            futures.computeIfAbsent(productId, this::getStockAsync);
+        }
+
+        long giveUpAt = System.nanoTime() + deadline.toNanos();
+        Map<String, Integer> stocks = new LinkedHashMap<>();
+        for(Map.Entry<String, CompletableFuture<Integer>> entry : futures.entrySet()){
+            try{
+                long remaining = Math.max(0, giveUpAt - System.nanoTime());
+                stocks.put(entry.getKey(), entry.getValue().get(remaining, TimeUnit.NANOSECONDS));
+            } catch(TimeoutException | ExecutionException e){
+                entry.getValue().cancel(false);
+            } catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return stocks;
+    }
+
+    public void printProductInfoAsync(List<String> productIds){
+        Map<String, Integer> stocks = getStocksAsync(productIds);
+        for(String productId : productIds){
+            Integer stock = stocks.get(productId);
+            System.out.println("Product: " + productId + " | Stock: " + (stock == null ? UNAVAILABLE : stock));
+        }
+    }
     
 }
@@ -0,0 +1,125 @@
+package com.example.tacos;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// InventoryService client for a shard running in another process (see InventoryShardServer).
+//
+// Connections are kept alive and pooled: a caller borrows one, does a single
+// request/response round trip and hands it back. A bulk lookup is one round trip
+// for up to InventoryShardServer.MAX_BATCH SKUs. A connection that failed is
+// dropped, and the next call opens a fresh one.
+public class RemoteInventoryService implements InventoryService, AutoCloseable {
+
+    private final InetSocketAddress address;
+    private final int timeoutMillis;
+    private final ConcurrentLinkedQueue<Connection> idle = new ConcurrentLinkedQueue<>();
+
+    public RemoteInventoryService(String host, int port){
+        this(host, port, 2_000);
+    }
+
+    public RemoteInventoryService(String host, int port, int timeoutMillis){
+        this.address = new InetSocketAddress(host, port);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public int getStock(String productId){
+        return getStocks(List.of(productId)).get(productId);
+    }
+
+    @Override
+    public Map<String, Integer> getStocks(Collection<String> productIds){
+        List<String> ids = new ArrayList<>(productIds);
+        if(ids.isEmpty()){
+            return new HashMap<>();
+        }
+        if(ids.size() <= InventoryShardServer.MAX_BATCH){
+            return request(ids);
+        }
+        Map<String, Integer> stocks = new HashMap<>();
+        for(int from = 0; from < ids.size(); from += InventoryShardServer.MAX_BATCH){
+            stocks.putAll(request(ids.subList(from, Math.min(ids.size(), from + InventoryShardServer.MAX_BATCH))));
+        }
+        return stocks;
+    }
+
+    // one round trip
+    private Map<String, Integer> request(List<String> ids){
+        Connection connection = borrow();
+        try{
+            connection.out.writeInt(ids.size());
+            for(String productId : ids){
+                connection.out.writeUTF(productId);
+            }
+            connection.out.flush();
+
+            Map<String, Integer> stocks = new HashMap<>();
+            for(String productId : ids){
+                stocks.put(productId, connection.in.readInt());
+            }
+            idle.offer(connection);
+            return stocks;
+        } catch(IOException e){
+            connection.close();
+            throw new UncheckedIOException("Inventory shard " + address + " failed", e);
+        }
+    }
+
+    @Override
+    public void close(){
+        Connection connection;
+        while((connection = idle.poll()) != null){
+            connection.close();
+        }
+    }
+
+    private Connection borrow(){
+        Connection connection = idle.poll();
+        if(connection != null){
+            return connection;
+        }
+        try{
+            Socket socket = new Socket();
+            socket.connect(address, timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            socket.setTcpNoDelay(true);
+            return new Connection(socket);
+        } catch(IOException e){
+            throw new UncheckedIOException("Cannot reach inventory shard " + address, e);
+        }
+    }
+
+    private static final class Connection {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        Connection(Socket socket) throws IOException{
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void close(){
+            try{
+                socket.close();
+            } catch(IOException ignored){
+                // already broken
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.tacos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Flash-sale stress test for LockFreeStockReservationService.
+//
+// Many threads (2x cores by default) fight over a handful of SKUs: reserve,
+// then either commit (buy) or release (abandon the cart). At the end we
+// check the bookkeeping that must hold no matter how the threads interleaved:
+//   - every SKU: sold <= initial stock           (no oversell)
+//   - every SKU: available + sold == initial     (nothing lost or created)
+//   - no units are left reserved
+//   - a reservation cannot be released twice
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.tacos.ReservationStressSimulation"
+//      optional args: <threads> <seconds>
+public class ReservationStressSimulation {
+
+    private static final String[] SKUS = {"SKU-HOT", "SKU-101", "SKU-102", "SKU-103"};
+    private static final int INITIAL_STOCK = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 2;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.println("=== RUNNING RESERVATION STRESS TEST ===");
+        System.out.println("threads=" + threads + ", seconds=" + seconds + ", stock per SKU=" + INITIAL_STOCK);
+
+        LockFreeStockReservationService engine =
+            new LockFreeStockReservationService(productId -> INITIAL_STOCK);
+
+        LongAdder reserved = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder committed = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        List<Thread> workers = new ArrayList<>();
+        for(int t = 0; t < threads; t++){
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try{
+                    start.await();
+                } catch(InterruptedException e){
+                    return;
+                }
+                while(System.nanoTime() < deadline){
+                    // 70% of the traffic goes to one hot SKU
+                    String sku = random.nextInt(10) < 7 ? SKUS[0] : SKUS[1 + random.nextInt(SKUS.length - 1)];
+                    int quantity = 1 + random.nextInt(3);
+                    long reservationId = engine.reserve(sku, quantity);
+                    if(reservationId != StockReservationService.NO_RESERVATION){
+                        reserved.increment();
+                        if(random.nextBoolean()){
+                            engine.commit(reservationId);
+                            committed.add(quantity);
+                        } else {
+                            engine.release(reservationId);
+                        }
+                    } else {
+                        rejected.increment();
+                    }
+                }
+            }, "reserver-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for(Thread worker : workers){
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - began) / 1e9;
+
+        boolean passed = true;
+        long totalSold = 0;
+        for(String sku : SKUS){
+            int available = engine.getStock(sku);
+            int sold = engine.getSold(sku);
+            int held = engine.getReserved(sku);
+            totalSold += sold;
+            System.out.println(sku + " | available: " + available + " | sold: " + sold
+                + " | still reserved: " + held + " | striped: " + engine.isStriped(sku));
+
+            if(sold > INITIAL_STOCK || available < 0 || available + sold != INITIAL_STOCK || held != 0){
+                System.out.println("  -> bookkeeping broken for " + sku);
+                passed = false;
+            }
+        }
+        if(totalSold != committed.sum()){
+            System.out.println("sold units (" + totalSold + ") != committed units (" + committed.sum() + ")");
+            passed = false;
+        }
+
+        // an abandoned cart released twice must not create stock
+        engine.restock(SKUS[1], 1);
+        long reservationId = engine.reserve(SKUS[1], 1);
+        engine.release(reservationId);
+        try{
+            engine.release(reservationId);
+            System.out.println("second release of reservation " + reservationId + " was accepted");
+            passed = false;
+        } catch(IllegalStateException expected){
+            // already settled
+        }
+        if(engine.getStock(SKUS[1]) != INITIAL_STOCK - engine.getSold(SKUS[1]) + 1){
+            System.out.println("double release changed the stock of " + SKUS[1]);
+            passed = false;
+        }
+
+        long operations = reserved.sum() + rejected.sum();
+        System.out.printf("reservations: %d ok, %d rejected%n", reserved.sum(), rejected.sum());
+        System.out.printf("throughput: %.1f M reserve calls/sec%n", operations / elapsed / 1e6);
+
+        System.out.println(passed ? "TEST PASSED: no oversell" : "TEST FAILED");
+        if(!passed){
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.tacos;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Decorator: keeps a slow backend from dragging every caller's latency with it.
+//
+//   deadline         - a lookup that takes longer than this is given up on
+//   hedging          - if the first attempt is slower than the recent p95, a second
+//                      one is sent and whichever answers first wins; the slow tail
+//                      of a single call rarely hits two calls at once
+//   bulkhead         - at most maxConcurrent calls are outstanding against the
+//                      backend (hedges only go out while there is room)
+//   circuit breaker  - when half of the recent calls failed or timed out, stop
+//                      calling for a while; every failed probe doubles the pause
+//
+// Whenever a lookup cannot be answered (deadline, bulkhead full, breaker open,
+// backend error) the last stock seen for that SKU is returned instead. Only a
+// SKU that was never seen fails with the original error.
+public class ResilientInventoryService implements InventoryService {
+
+    // hedge after this percentile of recent successful latencies
+    private static final double HEDGE_PERCENTILE = 95.0;
+    // successes per latency window; the hedge delay is taken from the previous window
+    private static final int LATENCY_WINDOW = 1_000;
+
+    private final InventoryService delegate;
+    private final Executor executor;
+    private final long deadlineNanos;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker breaker;
+
+    // last stock seen per SKU - one Integer per product in the catalog
+    private final Map<String, Integer> lastKnown = new ConcurrentHashMap<>();
+
+    private volatile LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicInteger windowSamples = new AtomicInteger();
+    // no hedging until a first window has been measured
+    private volatile long hedgeDelayNanos = Long.MAX_VALUE;
+
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public ResilientInventoryService(InventoryService delegate, Executor executor, Duration deadline,
+                                     int maxConcurrent, Duration openDuration){
+        if(maxConcurrent < 1){
+            throw new IllegalArgumentException("maxConcurrent must be positive: " + maxConcurrent);
+        }
+        this.delegate = delegate;
+        this.executor = executor;
+        this.deadlineNanos = deadline.toNanos();
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.breaker = new CircuitBreaker(100, 0.5, openDuration.toNanos());
+    }
+
+    @Override
+    public int getStock(String productId){
+        try{
+            return getStockAsync(productId, executor).join();
+        } catch(CompletionException e){
+            if(e.getCause() instanceof RuntimeException cause){
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // hedging and fallback never block: everything happens on the service's executor
+    @Override
+    public CompletableFuture<Integer> getStockAsync(String productId, Executor callerExecutor){
+        long permit = breaker.allowRequest();
+        if(permit == CircuitBreaker.REJECTED){
+            return fallback(productId, new IllegalStateException("Inventory circuit is open"));
+        }
+        if(!bulkhead.tryAcquire()){
+            // hand a half-open probe back, or the circuit would never close again
+            breaker.abandon(permit);
+            rejections.increment();
+            return fallback(productId, new IllegalStateException("Inventory bulkhead is full"));
+        }
+
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        AtomicInteger attemptsLeft = new AtomicInteger(1);
+        attempt(productId, result, attemptsLeft);
+
+        long hedgeDelay = hedgeDelayNanos;
+        if(hedgeDelay < deadlineNanos){
+            attemptsLeft.incrementAndGet();
+            Executor delayed = CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.NANOSECONDS, executor);
+            delayed.execute(() -> {
+                if(!result.isDone() && bulkhead.tryAcquire()){
+                    hedges.increment();
+                    attempt(productId, result, attemptsLeft);
+                } else if(attemptsLeft.decrementAndGet() == 0 && !result.isDone()){
+                    result.completeExceptionally(new IllegalStateException("Inventory lookup failed"));
+                }
+            });
+        }
+
+        return result.orTimeout(deadlineNanos, TimeUnit.NANOSECONDS).handle((stock, error) -> {
+            if(error == null){
+                breaker.recordSuccess(permit);
+                lastKnown.put(productId, stock);
+                return CompletableFuture.completedFuture(stock);
+            }
+            breaker.recordFailure(permit);
+            return fallback(productId, error);
+        }).thenCompose(future -> future);
+    }
+
+    @Override
+    public Map<String, Integer> getStocks(Collection<String> productIds){
+        // one bulk round trip under deadline, bulkhead and breaker; a bulk call's latency
+        // says little about single lookups, so it is neither hedged nor measured
+        List<String> ids = List.copyOf(productIds);
+        long permit = breaker.allowRequest();
+        if(permit == CircuitBreaker.REJECTED){
+            return fallbacks(ids, new IllegalStateException("Inventory circuit is open"));
+        }
+        if(!bulkhead.tryAcquire()){
+            breaker.abandon(permit);
+            rejections.increment();
+            return fallbacks(ids, new IllegalStateException("Inventory bulkhead is full"));
+        }
+        try{
+            Map<String, Integer> stocks = CompletableFuture.supplyAsync(() -> delegate.getStocks(ids), executor)
+                .whenComplete((ignored, error) -> bulkhead.release())
+                .orTimeout(deadlineNanos, TimeUnit.NANOSECONDS)
+                .join();
+            breaker.recordSuccess(permit);
+            lastKnown.putAll(stocks);
+            return stocks;
+        } catch(CompletionException e){
+            breaker.recordFailure(permit);
+            return fallbacks(ids, e.getCause());
+        }
+    }
+
+    public long hedgeCount(){
+        return hedges.sum();
+    }
+
+    public long fallbackCount(){
+        return fallbacks.sum();
+    }
+
+    public long rejectionCount(){
+        return rejections.sum();
+    }
+
+    public boolean isCircuitOpen(){
+        return breaker.isOpen();
+    }
+
+    // current hedge delay, or null while it is still being measured
+    public Duration hedgeDelay(){
+        long delay = hedgeDelayNanos;
+        return delay == Long.MAX_VALUE ? null : Duration.ofNanos(delay);
+    }
+
+    // one call to the backend, holding a bulkhead permit until it answers
+    private void attempt(String productId, CompletableFuture<Integer> result, AtomicInteger attemptsLeft){
+        long started = System.nanoTime();
+        CompletableFuture<Integer> call;
+        try{
+            call = delegate.getStockAsync(productId, executor);
+        } catch(RuntimeException e){
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((stock, error) -> {
+            bulkhead.release();
+            if(error == null){
+                recordLatency(System.nanoTime() - started);
+                result.complete(stock);
+            } else if(attemptsLeft.decrementAndGet() == 0){
+                // every attempt failed
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    private void recordLatency(long nanos){
+        LatencyHistogram window = latencies;
+        window.record(nanos);
+        if(windowSamples.incrementAndGet() % LATENCY_WINDOW == 0){
+            // start a fresh window so the delay follows the backend as it changes
+            latencies = new LatencyHistogram();
+            hedgeDelayNanos = window.snapshot().percentile(HEDGE_PERCENTILE);
+        }
+    }
+
+    private CompletableFuture<Integer> fallback(String productId, Throwable error){
+        Integer stock = lastKnown.get(productId);
+        if(stock != null){
+            fallbacks.increment();
+            return CompletableFuture.completedFuture(stock);
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return CompletableFuture.failedFuture(cause);
+    }
+
+    private Map<String, Integer> fallbacks(List<String> productIds, Throwable error){
+        Map<String, Integer> stocks = new HashMap<>();
+        for(String productId : productIds){
+            Integer stock = lastKnown.get(productId);
+            if(stock == null){
+                if(error instanceof RuntimeException runtime){
+                    throw runtime;
+                }
+                throw new IllegalStateException("Inventory unavailable for " + productId, error);
+            }
+            stocks.put(productId, stock);
+        }
+        fallbacks.add(productIds.size());
+        return stocks;
+    }
+
+    // Count-based circuit breaker over the last `window` outcomes.
+    // closed -> open when the failure rate reaches the threshold; after the pause one
+    // probe is let through (half-open): success closes the circuit, failure reopens it
+    // for twice as long (capped at 32x).
+    //
+    // allowRequest hands out a permit: the generation the request was let through in.
+    // Every state change starts a new generation and each probe gets its own, so an
+    // outcome only counts for the state it was issued in - a slow call from before a
+    // trip cannot close the circuit, and only the probe itself decides the half-open state.
+    private static final class CircuitBreaker {
+        static final long REJECTED = -1;
+
+        private final boolean[] outcomes;
+        private final double threshold;
+        private final long baseOpenNanos;
+
+        // guarded by "this"
+        private int next;
+        private int recorded;
+        private int failures;
+        private int consecutiveTrips;
+        private boolean probing;
+
+        // written under "this"; openUntil is always written before generation, so a
+        // reader that sees a new generation also sees the state that came with it
+        private final AtomicLong openUntil = new AtomicLong(0);
+        private volatile long generation;
+
+        CircuitBreaker(int window, double threshold, long baseOpenNanos){
+            this.outcomes = new boolean[window];
+            this.threshold = threshold;
+            this.baseOpenNanos = baseOpenNanos;
+        }
+
+        boolean isOpen(){
+            return openUntil.get() != 0;
+        }
+
+        // a permit for recordSuccess / recordFailure / abandon, or REJECTED
+        long allowRequest(){
+            long permit = generation;
+            long until = openUntil.get();
+            if(until == 0){
+                return permit;
+            }
+            if(System.nanoTime() - until < 0){
+                return REJECTED;
+            }
+            // pause is over: exactly one caller gets to probe
+            synchronized(this){
+                if(probing || openUntil.get() == 0){
+                    return REJECTED;
+                }
+                probing = true;
+                return ++generation;
+            }
+        }
+
+        synchronized void recordSuccess(long permit){
+            if(permit != generation){
+                return; // issued before the last state change
+            }
+            if(probing){
+                probing = false;
+                consecutiveTrips = 0;
+                reset();
+                openUntil.set(0);
+                generation++;
+                return;
+            }
+            record(false);
+        }
+
+        synchronized void recordFailure(long permit){
+            if(permit != generation){
+                return;
+            }
+            if(probing){
+                probing = false;
+                trip();
+                return;
+            }
+            record(true);
+            if(recorded == outcomes.length && failures >= threshold * outcomes.length){
+                trip();
+            }
+        }
+
+        // the request was never sent: let the next caller probe instead
+        synchronized void abandon(long permit){
+            if(probing && permit == generation){
+                probing = false;
+            }
+        }
+
+        private void record(boolean failure){
+            if(recorded == outcomes.length){
+                if(outcomes[next]){
+                    failures--;
+                }
+            } else {
+                recorded++;
+            }
+            outcomes[next] = failure;
+            if(failure){
+                failures++;
+            }
+            next = (next + 1) % outcomes.length;
+        }
+
+        private void trip(){
+            long pause = baseOpenNanos << Math.min(consecutiveTrips, 5);
+            consecutiveTrips++;
+            reset();
+            long until = System.nanoTime() + pause;
+            openUntil.set(until == 0 ? 1 : until);
+            generation++;
+        }
+
+        private void reset(){
+            next = 0;
+            recorded = 0;
+            failures = 0;
+        }
+    }
+}
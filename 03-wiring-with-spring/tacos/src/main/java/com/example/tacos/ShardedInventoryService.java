@@ -0,0 +1,138 @@
+package com.example.tacos;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+// Spreads SKUs over several InventoryService shards with consistent hashing.
+//
+// Every shard owns `virtualNodes` points on a 64-bit hash ring; a SKU belongs to
+// the first shard point at or after its own hash. Adding or removing a shard
+// only moves the SKUs between that shard's points and their predecessors
+// (about 1/N of all keys) - everything else stays where it was.
+//
+// Each shard comes with its own executor: bulk lookups are split per shard and
+// run in parallel, one getStocks call per shard. A shard can be any
+// InventoryService - a local DefaultInventoryService, or a RemoteInventoryService
+// talking to an InventoryShardServer in another process.
+//
+// ProductService does not notice any of this; it is just another InventoryService.
+public class ShardedInventoryService implements InventoryService {
+
+    private final int virtualNodes;
+
+    // copy-on-write: lookups read the current ring without locking
+    private volatile NavigableMap<Long, Shard> ring = new TreeMap<>();
+
+    public ShardedInventoryService(int virtualNodes){
+        if(virtualNodes < 1){
+            throw new IllegalArgumentException("virtualNodes must be positive: " + virtualNodes);
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    public synchronized void addShard(String name, InventoryService service, Executor executor){
+        TreeMap<Long, Shard> next = new TreeMap<>(ring);
+        for(Shard existing : next.values()){
+            if(existing.name().equals(name)){
+                throw new IllegalArgumentException("Shard already exists: " + name);
+            }
+        }
+        Shard shard = new Shard(name, service, executor);
+        for(int i = 0; i < virtualNodes; i++){
+            next.put(hash(name + "#" + i), shard);
+        }
+        ring = next;
+    }
+
+    public synchronized void removeShard(String name){
+        TreeMap<Long, Shard> next = new TreeMap<>(ring);
+        if(!next.values().removeIf(shard -> shard.name().equals(name))){
+            throw new IllegalArgumentException("No such shard: " + name);
+        }
+        ring = next;
+    }
+
+    public String shardOf(String productId){
+        return route(ring, productId).name();
+    }
+
+    @Override
+    public int getStock(String productId){
+        return route(ring, productId).service().getStock(productId);
+    }
+
+    @Override
+    public Map<String, Integer> getStocks(Collection<String> productIds){
+        NavigableMap<Long, Shard> current = ring;
+
+        // split the request per shard
+        Map<Shard, List<String>> perShard = new IdentityHashMap<>();
+        for(String productId : productIds){
+            perShard.computeIfAbsent(route(current, productId), shard -> new ArrayList<>()).add(productId);
+        }
+
+        // fan out: every shard works on its part on its own executor
+        List<CompletableFuture<Map<String, Integer>>> parts = new ArrayList<>(perShard.size());
+        for(Map.Entry<Shard, List<String>> entry : perShard.entrySet()){
+            Shard shard = entry.getKey();
+            List<String> ids = entry.getValue();
+            parts.add(CompletableFuture.supplyAsync(() -> shard.service().getStocks(ids), shard.executor()));
+        }
+
+        // merge
+        Map<String, Integer> stocks = new HashMap<>();
+        for(CompletableFuture<Map<String, Integer>> part : parts){
+            try{
+                stocks.putAll(part.join());
+            } catch(CompletionException e){
+                if(e.getCause() instanceof RuntimeException cause){
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return stocks;
+    }
+
+    // the shard's own executor is used, whatever the caller passes in
+    @Override
+    public CompletableFuture<Integer> getStockAsync(String productId, Executor executor){
+        Shard shard = route(ring, productId);
+        return shard.service().getStockAsync(productId, shard.executor());
+    }
+
+    private static Shard route(NavigableMap<Long, Shard> ring, String productId){
+        if(ring.isEmpty()){
+            throw new IllegalStateException("ShardedInventoryService has no shards");
+        }
+        Map.Entry<Long, Shard> owner = ring.ceilingEntry(hash(productId));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, then a final avalanche (murmur3 fmix64)
+    static long hash(String key){
+        long h = 0xcbf29ce484222325L;
+        for(byte b : key.getBytes(StandardCharsets.UTF_8)){
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private record Shard(String name, InventoryService service, Executor executor) { }
+}
@@ -0,0 +1,107 @@
+package com.example.tacos;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Routing and merging check for ShardedInventoryService.
+//
+// Three local shards and one InventoryShardServer reached through a
+// RemoteInventoryService. Every shard reports a stock derived from the SKU, so
+// the merged getStocks result can be checked entry by entry. Then a fifth shard
+// is added: only about 1/5 of the SKUs may move, and all of them to the new shard.
+// Finally a client sends a request with a negative count: the server drops that
+// connection and keeps serving everyone else.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.tacos.ShardingSimulation"
+//      optional args: <skus>
+public class ShardingSimulation {
+
+    public static void main(String[] args) throws Exception {
+        int skus = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        System.out.println("=== RUNNING SHARDING TEST: " + skus + " SKUs ===");
+
+        List<String> ids = new ArrayList<>(skus);
+        for(int i = 0; i < skus; i++){
+            ids.add("SKU-" + i);
+        }
+        InventoryService store = ShardingSimulation::stockOf;
+
+        boolean correct = true;
+        try(ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            InventoryShardServer server = new InventoryShardServer(store, 0).start();
+            RemoteInventoryService remote = new RemoteInventoryService("127.0.0.1", server.port())){
+
+            ShardedInventoryService sharded = new ShardedInventoryService(128);
+            for(int shard = 0; shard < 3; shard++){
+                sharded.addShard("local-" + shard, store, executor);
+            }
+            sharded.addShard("remote", remote, executor);
+
+            // merged bulk lookup: every SKU once, with its own stock
+            long started = System.nanoTime();
+            Map<String, Integer> stocks = sharded.getStocks(ids);
+            System.out.printf("getStocks over 4 shards: %.1f ms%n", (System.nanoTime() - started) / 1e6);
+            int wrong = 0;
+            for(String productId : ids){
+                Integer stock = stocks.get(productId);
+                if(stock == null || stock != stockOf(productId)){
+                    wrong++;
+                }
+            }
+            System.out.println("merged entries: " + stocks.size() + ", wrong or missing: " + wrong);
+            correct &= stocks.size() == skus && wrong == 0;
+
+            // one more shard: only the SKUs it takes over move
+            Map<String, String> before = new HashMap<>();
+            for(String productId : ids){
+                before.put(productId, sharded.shardOf(productId));
+            }
+            sharded.addShard("local-3", store, executor);
+            int moved = 0;
+            int movedElsewhere = 0;
+            for(String productId : ids){
+                String now = sharded.shardOf(productId);
+                if(!now.equals(before.get(productId))){
+                    moved++;
+                    if(!now.equals("local-3")){
+                        movedElsewhere++;
+                    }
+                }
+            }
+            double share = moved / (double) skus;
+            System.out.printf("after adding a 5th shard: %.1f%% of SKUs moved (ideal 20%%), %d between old shards%n",
+                share * 100, movedElsewhere);
+            correct &= movedElsewhere == 0 && share > 0.1 && share < 0.3;
+
+            // a request the server must refuse, without taking the shard down
+            try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.port())){
+                socket.setSoTimeout(2_000);
+                new DataOutputStream(socket.getOutputStream()).writeInt(-1);
+                int answer = new DataInputStream(socket.getInputStream()).read();
+                System.out.println("negative count: connection " + (answer < 0 ? "closed" : "answered"));
+                correct &= answer < 0;
+            } catch(IOException e){
+                System.out.println("negative count: connection reset");
+            }
+            correct &= remote.getStock("SKU-7") == stockOf("SKU-7");
+        }
+
+        System.out.println(correct ? "TEST PASSED: routing is stable and results merge" : "TEST FAILED");
+        if(!correct){
+            System.exit(1);
+        }
+    }
+
+    private static int stockOf(String productId){
+        return Math.floorMod(productId.hashCode(), 1_000);
+    }
+}
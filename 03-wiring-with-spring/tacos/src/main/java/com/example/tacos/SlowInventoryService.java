@@ -0,0 +1,30 @@
+package com.example.tacos;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+// MockInventoryService with injected latency: fake stock, realistic timing.
+//
+// Every call takes `typical`; a `slowFraction` of calls hit a hiccup
+// (GC pause, lock, cold cache on the backend) and take `slow` instead.
+// Useful to see what tail latency does to the callers.
+public class SlowInventoryService implements InventoryService {
+
+    private final long typicalNanos;
+    private final long slowNanos;
+    private final double slowFraction;
+
+    public SlowInventoryService(Duration typical, Duration slow, double slowFraction){
+        this.typicalNanos = typical.toNanos();
+        this.slowNanos = slow.toNanos();
+        this.slowFraction = slowFraction;
+    }
+
+    @Override
+    public int getStock(String productId){
+        boolean hiccup = ThreadLocalRandom.current().nextDouble() < slowFraction;
+        LockSupport.parkNanos(hiccup ? slowNanos : typicalNanos);
+        return 99; // using a fake data for testing
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.tacos;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Startup time of Main with the classic AnnotationConfigApplicationContext
+// vs. the build-time generated wiring (--aot).
+//
+// Each run is a fresh JVM, timed from process start to the first
+// getBean(ProductService.class) (Main --startup-time). Runs alternate between
+// the two modes so both see the same disk cache / CPU state.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.tacos.StartupComparison"
+//      optional arg: <runs per mode>
+public class StartupComparison {
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath = classpath();
+
+        System.out.println("=== STARTUP: process start -> first getBean(ProductService) ===");
+        long[] reflective = new long[runs];
+        long[] generated = new long[runs];
+        for(int i = 0; i < runs; i++){
+            reflective[i] = run(java, classpath);
+            generated[i] = run(java, classpath, "--aot");
+        }
+
+        report("AnnotationConfigApplicationContext", reflective);
+        report("generated wiring (--aot)          ", generated);
+    }
+
+    private static long run(String java, String classpath, String... extra) throws Exception {
+        List<String> command = new ArrayList<>(List.of(java, "-cp", classpath, Main.class.getName(), "--startup-time"));
+        command.addAll(Arrays.asList(extra));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long startup = -1;
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))){
+            String line;
+            while((line = reader.readLine()) != null){
+                if(line.startsWith("startup-ms ")){
+                    startup = Long.parseLong(line.substring("startup-ms ".length()));
+                }
+            }
+        }
+        if(process.waitFor() != 0 || startup < 0){
+            throw new IllegalStateException("Main exited without reporting startup time: " + command);
+        }
+        return startup;
+    }
+
+    private static void report(String mode, long[] millis){
+        long[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        System.out.println(mode + " | median: " + sorted[sorted.length / 2] + " ms"
+            + " | min: " + sorted[0] + " ms | max: " + sorted[sorted.length - 1] + " ms");
+    }
+
+    // under exec:java we live in Maven's class loader, not on java.class.path
+    private static String classpath() throws URISyntaxException {
+        if(StartupComparison.class.getClassLoader() instanceof URLClassLoader loader){
+            List<String> entries = new ArrayList<>();
+            for(URL url : loader.getURLs()){
+                entries.add(Path.of(url.toURI()).toString());
+            }
+            return String.join(File.pathSeparator, entries);
+        }
+        return System.getProperty("java.class.path");
+    }
+}
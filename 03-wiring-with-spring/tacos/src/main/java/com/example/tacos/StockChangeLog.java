@@ -0,0 +1,461 @@
+package com.example.tacos;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Event-sourced stock changes: an append-only log of "SKU += delta" records.
+//
+// Records have a fixed size and go into memory-mapped segment files, so an
+// append is a few stores into the page cache - no write() call per change.
+// Durability is group-committed: one flusher thread forces the mapped pages
+// and every append that landed before the force is acknowledged at once, so
+// a thousand concurrent writers share one fsync instead of paying for a
+// thousand.
+//
+// Every `snapshotEvery` records the current state is written as an
+// OffHeapStockTable snapshot and the segments it covers are deleted - the log
+// never holds more than one snapshot interval of history.
+//
+// open() maps the newest snapshot (no parsing, see OffHeapStockTable.load) and
+// replays only the records after it, scanning the segments sequentially.
+//
+// A snapshot that fails (say the disk is full) does not stop the log: the records
+// stay in their segments, the failure goes to the failure log passed to open()
+// and is counted in snapshotFailureCount(), and the snapshot is retried later.
+//
+// directory layout:
+//   snapshot-<seq>.stk     state after record <seq>
+//   segment-<seq>.log      records starting at <seq>
+//
+// record layout (64 bytes):
+//   long seq | int delta | byte keyLength | 3 bytes padding | 44 bytes key (Latin-1) | int crc32c
+// seq 0 never occurs, so a zeroed (preallocated) slot marks the end of the log;
+// a bad checksum marks a torn write from a crash and ends replay as well.
+public class StockChangeLog implements AutoCloseable {
+
+    private static final int RECORD_BYTES = 64;
+    private static final int SEQ = 0;
+    private static final int DELTA = 8;
+    private static final int KEY_LENGTH = 12;
+    private static final int KEY = 16;
+    private static final int CRC = 60;
+    private static final int MAX_KEY_LENGTH = CRC - KEY;
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final long snapshotEvery;
+    private final OffHeapStockTable table;
+    private final Consumer<String> failureLog;
+    private final LongAdder snapshotFailures = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition written = lock.newCondition();
+
+    // all guarded by lock
+    private Segment current;
+    private final List<Segment> unforced = new ArrayList<>();
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private long lastSeq;
+    private long durableSeq;
+    private long snapshotSeq;
+    private boolean closed;
+
+    private final Thread flusher;
+
+    private StockChangeLog(Path directory, int segmentBytes, long snapshotEvery, Consumer<String> failureLog,
+                           OffHeapStockTable table, long snapshotSeq, long lastSeq, Segment current){
+        this.directory = directory;
+        this.failureLog = failureLog;
+        this.recordsPerSegment = segmentBytes / RECORD_BYTES;
+        this.snapshotEvery = snapshotEvery;
+        this.table = table;
+        this.snapshotSeq = snapshotSeq;
+        this.lastSeq = lastSeq;
+        this.durableSeq = lastSeq;
+        this.current = current;
+        this.flusher = Thread.ofPlatform().daemon().name("stock-log-flusher").start(this::flushLoop);
+    }
+
+    // 64 MB segments, a snapshot every million changes
+    public static StockChangeLog open(Path directory){
+        return open(directory, 64 << 20, 1_000_000);
+    }
+
+    // failures the log survives (snapshots) go to System.err
+    public static StockChangeLog open(Path directory, int segmentBytes, long snapshotEvery){
+        return open(directory, segmentBytes, snapshotEvery, System.err::println);
+    }
+
+    public static StockChangeLog open(Path directory, int segmentBytes, long snapshotEvery, Consumer<String> failureLog){
+        if(segmentBytes < RECORD_BYTES){
+            throw new IllegalArgumentException("segmentBytes must hold at least one record: " + segmentBytes);
+        }
+        if(snapshotEvery < 1){
+            throw new IllegalArgumentException("snapshotEvery must be positive: " + snapshotEvery);
+        }
+        try{
+            Files.createDirectories(directory);
+            TreeMap<Long, Path> snapshots = list(directory, "snapshot-", ".stk");
+            TreeMap<Long, Path> segments = list(directory, "segment-", ".log");
+
+            // newest snapshot is the starting point
+            long snapshotSeq = snapshots.isEmpty() ? 0 : snapshots.lastKey();
+            OffHeapStockTable table = snapshots.isEmpty()
+                ? new OffHeapStockTable(1024)
+                : OffHeapStockTable.load(snapshots.lastEntry().getValue());
+
+            // then every record after it, in order
+            long lastSeq = snapshotSeq;
+            Segment tail = null;
+            List<Long> firstSeqs = new ArrayList<>(segments.keySet());
+            for(int i = 0; i < firstSeqs.size(); i++){
+                long firstSeq = firstSeqs.get(i);
+                boolean last = i == firstSeqs.size() - 1;
+                if(!last && firstSeqs.get(i + 1) <= snapshotSeq + 1){
+                    // fully covered by the snapshot, left over from a crash during compaction
+                    continue;
+                }
+                if(firstSeq > lastSeq + 1){
+                    throw new IllegalStateException("Stock log is missing records " + (lastSeq + 1) + ".." + (firstSeq - 1));
+                }
+                Segment segment = Segment.map(segments.get(firstSeq), firstSeq, segmentBytes);
+                lastSeq = replay(segment, table, snapshotSeq, lastSeq);
+                if(!last && firstSeqs.get(i + 1) != lastSeq + 1){
+                    throw new IllegalStateException("Stock log segment " + segments.get(firstSeq)
+                        + " ends at record " + lastSeq + " but the next one starts at " + firstSeqs.get(i + 1));
+                }
+                if(last){
+                    tail = segment;
+                }
+            }
+            if(tail == null || tail.records == tail.capacity){
+                tail = Segment.create(directory, lastSeq + 1, segmentBytes);
+            }
+            return new StockChangeLog(directory, segmentBytes, snapshotEvery, failureLog, table, snapshotSeq, lastSeq, tail);
+        } catch(IOException e){
+            throw new UncheckedIOException("Could not open stock log " + directory, e);
+        }
+    }
+
+    // the replayed (and from now on live) state, read-only
+    public InventoryService inventoryService(){
+        return new DefaultInventoryService(table);
+    }
+
+    // Appends one change and waits until it is on disk. Returns its sequence number.
+    public long record(String productId, int delta){
+        try{
+            return append(productId, delta).join();
+        } catch(CompletionException e){
+            if(e.getCause() instanceof RuntimeException cause){
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Appends one change; the future completes once the group commit that covers it is done.
+    // The change is visible to inventoryService() right away.
+    public CompletableFuture<Long> append(String productId, int delta){
+        if(productId.length() > MAX_KEY_LENGTH){
+            throw new IllegalArgumentException("Product id longer than " + MAX_KEY_LENGTH + " chars: " + productId);
+        }
+        for(int i = 0; i < productId.length(); i++){
+            if(productId.charAt(i) > 0xff){
+                throw new IllegalArgumentException("Product id must be Latin-1: " + productId);
+            }
+        }
+        lock.lock();
+        try{
+            if(closed){
+                throw new IllegalStateException("Stock log is closed");
+            }
+            int stock = Math.max(table.get(productId), 0);
+            long updated = (long) stock + delta;
+            if(updated < 0 || updated > Integer.MAX_VALUE){
+                throw new IllegalArgumentException("Stock for " + productId + " would become " + updated);
+            }
+            if(current.records == current.capacity){
+                roll();
+            }
+            long seq = ++lastSeq;
+            current.write(seq, productId, delta);
+            table.put(productId, (int) updated);
+
+            CompletableFuture<Long> durable = new CompletableFuture<>();
+            waiters.add(new Waiter(seq, durable));
+            written.signal();
+            return durable;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // snapshots the flusher could not write; each one is retried snapshotEvery records later
+    public long snapshotFailureCount(){
+        return snapshotFailures.sum();
+    }
+
+    public long lastSequence(){
+        lock.lock();
+        try{
+            return lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes a snapshot of the current state and drops the segments it makes redundant.
+    // Appends wait while the table is saved.
+    public void snapshot(){
+        lock.lock();
+        try{
+            if(lastSeq == snapshotSeq){
+                return;
+            }
+            long seq = lastSeq;
+            table.save(directory.resolve(name("snapshot-", seq, ".stk")));
+            snapshotSeq = seq;
+
+            // everything up to seq is in the (fsynced) snapshot now
+            if(current.records > 0){
+                roll();
+            }
+            unforced.clear();
+            complete(seq);
+
+            for(Path old : list(directory, "snapshot-", ".stk").headMap(seq).values()){
+                Files.deleteIfExists(old);
+            }
+            for(Path old : list(directory, "segment-", ".log").headMap(current.firstSeq).values()){
+                Files.deleteIfExists(old);
+            }
+        } catch(IOException e){
+            throw new UncheckedIOException("Could not compact stock log " + directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // flushes what is pending, then stops the flusher
+    @Override
+    public void close(){
+        lock.lock();
+        try{
+            closed = true;
+            written.signal();
+        } finally {
+            lock.unlock();
+        }
+        try{
+            flusher.join();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushLoop(){
+        // after a failed snapshot, the next attempt waits for another snapshotEvery records
+        long snapshotRetryAt = 0;
+        while(true){
+            List<Segment> toForce;
+            long target;
+            boolean stop;
+            lock.lock();
+            try{
+                while(lastSeq == durableSeq && !closed){
+                    written.awaitUninterruptibly();
+                }
+                // everything appended up to here rides along with this fsync
+                target = lastSeq;
+                stop = closed;
+                toForce = new ArrayList<>(unforced);
+                toForce.add(current);
+                unforced.clear();
+            } finally {
+                lock.unlock();
+            }
+
+            RuntimeException failure = null;
+            try{
+                for(Segment segment : toForce){
+                    segment.buffer.force();
+                }
+            } catch(RuntimeException e){
+                failure = e;
+            }
+
+            lock.lock();
+            try{
+                if(failure != null){
+                    // nothing can be acknowledged any more
+                    closed = true;
+                    for(Waiter waiter : waiters){
+                        waiter.future.completeExceptionally(failure);
+                    }
+                    waiters.clear();
+                    return;
+                }
+                complete(target);
+            } finally {
+                lock.unlock();
+            }
+
+            if(target - snapshotSeq >= snapshotEvery && target >= snapshotRetryAt){
+                try{
+                    snapshot();
+                } catch(RuntimeException e){
+                    // only compaction failed (say the disk is full): the records are
+                    // durable in the segments, so keep acknowledging appends
+                    snapshotRetryAt = target + snapshotEvery;
+                    snapshotFailures.increment();
+                    failureLog.accept("stock log snapshot failed, retrying after record " + snapshotRetryAt + ": " + e);
+                }
+            }
+            if(stop){
+                return;
+            }
+        }
+    }
+
+    // must hold the lock
+    private void complete(long seq){
+        durableSeq = Math.max(durableSeq, seq);
+        while(!waiters.isEmpty() && waiters.peek().seq <= durableSeq){
+            Waiter waiter = waiters.poll();
+            waiter.future.complete(waiter.seq);
+        }
+    }
+
+    // must hold the lock
+    private void roll(){
+        unforced.add(current);
+        current = Segment.create(directory, lastSeq + 1, recordsPerSegment * RECORD_BYTES);
+    }
+
+    // applies the valid records of one segment and returns the last sequence number applied
+    private static long replay(Segment segment, OffHeapStockTable table, long snapshotSeq, long lastSeq){
+        ByteBuffer view = segment.buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        CRC32C crc = new CRC32C();
+        byte[] key = new byte[MAX_KEY_LENGTH];
+
+        int records = 0;
+        boolean clean = true;
+        for(int at = 0; records < segment.capacity; at += RECORD_BYTES, records++){
+            long seq = view.getLong(at + SEQ);
+            if(seq == 0){
+                break;
+            }
+            crc.reset();
+            crc.update(view.limit(at + CRC).position(at));
+            view.clear();
+            if((int) crc.getValue() != view.getInt(at + CRC) || seq > snapshotSeq && seq != lastSeq + 1){
+                // torn write: the crash happened in the middle of this record
+                clean = false;
+                break;
+            }
+            if(seq > snapshotSeq){
+                int length = view.get(at + KEY_LENGTH);
+                view.get(at + KEY, key, 0, length);
+                String productId = new String(key, 0, length, StandardCharsets.ISO_8859_1);
+                table.put(productId, Math.max(table.get(productId), 0) + view.getInt(at + DELTA));
+                lastSeq = seq;
+            }
+        }
+        if(!clean){
+            // pages may reach the disk out of order: records after the torn one
+            // must not come back to life once new records overwrite the gap
+            for(int at = records * RECORD_BYTES; at < segment.capacity * RECORD_BYTES; at += 8){
+                segment.buffer.putLong(at, 0);
+            }
+            segment.buffer.force();
+        }
+        segment.records = records;
+        return lastSeq;
+    }
+
+    private static TreeMap<Long, Path> list(Path directory, String prefix, String suffix) throws IOException{
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try(Stream<Path> paths = Files.list(directory)){
+            paths.forEach(path -> {
+                String name = path.getFileName().toString();
+                if(name.startsWith(prefix) && name.endsWith(suffix)){
+                    files.put(Long.parseLong(name, prefix.length(), name.length() - suffix.length(), 10), path);
+                }
+            });
+        }
+        return files;
+    }
+
+    private static String name(String prefix, long seq, String suffix){
+        return prefix + String.format("%020d", seq) + suffix;
+    }
+
+    private record Waiter(long seq, CompletableFuture<Long> future) { }
+
+    private static final class Segment {
+        final long firstSeq;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        int records;
+
+        private Segment(long firstSeq, MappedByteBuffer buffer){
+            this.firstSeq = firstSeq;
+            this.buffer = buffer;
+            this.capacity = buffer.capacity() / RECORD_BYTES;
+        }
+
+        static Segment create(Path directory, long firstSeq, int bytes){
+            return map(directory.resolve(name("segment-", firstSeq, ".log")), firstSeq, bytes);
+        }
+
+        // the file is sized up front; unused records read as zeros
+        static Segment map(Path file, long firstSeq, int bytes){
+            try(FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+                int size = (int) Math.max(channel.size(), bytes / RECORD_BYTES * RECORD_BYTES);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                return new Segment(firstSeq, buffer);
+            } catch(IOException e){
+                throw new UncheckedIOException("Could not map stock log segment " + file, e);
+            }
+        }
+
+        // must hold the log's lock; the seq goes in last so a half-written record has a bad crc
+        void write(long seq, String productId, int delta){
+            int at = records * RECORD_BYTES;
+            buffer.putInt(at + DELTA, delta);
+            buffer.put(at + KEY_LENGTH, (byte) productId.length());
+            for(int i = 0; i < MAX_KEY_LENGTH; i++){
+                buffer.put(at + KEY + i, i < productId.length() ? (byte) productId.charAt(i) : 0);
+            }
+            buffer.putLong(at + SEQ, seq);
+
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.duplicate().limit(at + CRC).position(at));
+            buffer.putInt(at + CRC, (int) crc.getValue());
+            records++;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.tacos;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+// Crash-and-restart check for StockChangeLog.
+//
+// Writer threads append random restocks and sales (waiting for the group commit
+// every 64 appends), the log is closed, and a fresh StockChangeLog is opened on
+// the same directory. The replayed stock of every SKU must match what the
+// writers ended up with, and the restart time is printed.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.tacos.StockChangeLogSimulation"
+//      optional args: <threads> <changes per thread> <skus>
+public class StockChangeLogSimulation {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int changesPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int skus = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        Path directory = Files.createTempDirectory("stock-log");
+
+        System.out.println("=== RUNNING STOCK CHANGE LOG TEST ===");
+        System.out.println("threads=" + threads + ", changes=" + (long) threads * changesPerThread + ", skus=" + skus);
+
+        List<String> ids = new ArrayList<>(skus);
+        for(int i = 0; i < skus; i++){
+            ids.add("SKU-" + i);
+        }
+
+        // 16 MB segments and a snapshot every 500k changes, so the run rolls and compacts a few times
+        long began = System.nanoTime();
+        StockChangeLog log = StockChangeLog.open(directory, 16 << 20, 500_000);
+        List<Thread> writers = new ArrayList<>();
+        for(int t = 0; t < threads; t++){
+            Thread writer = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                CompletableFuture<Long> lastAppend = null;
+                for(int i = 0; i < changesPerThread; i++){
+                    String sku = ids.get(random.nextInt(skus));
+                    try{
+                        lastAppend = log.append(sku, random.nextInt(4) == 0 ? -1 : 1 + random.nextInt(5));
+                    } catch(IllegalArgumentException soldOut){
+                        lastAppend = log.append(sku, 10);
+                    }
+                    if(i % 64 == 63){
+                        lastAppend.join();
+                    }
+                }
+                if(lastAppend != null){
+                    lastAppend.join();
+                }
+            }, "log-writer-" + t);
+            writers.add(writer);
+            writer.start();
+        }
+        for(Thread writer : writers){
+            writer.join();
+        }
+        double writeSeconds = (System.nanoTime() - began) / 1e9;
+
+        InventoryService live = log.inventoryService();
+        int[] expected = new int[skus];
+        for(int i = 0; i < skus; i++){
+            expected[i] = live.getStock(ids.get(i));
+        }
+        long records = log.lastSequence();
+        log.close();
+
+        // "restart"
+        long restartBegan = System.nanoTime();
+        StockChangeLog reopened = StockChangeLog.open(directory, 16 << 20, 500_000);
+        double restartMillis = (System.nanoTime() - restartBegan) / 1e6;
+
+        InventoryService replayed = reopened.inventoryService();
+        int mismatches = 0;
+        for(int i = 0; i < skus; i++){
+            if(replayed.getStock(ids.get(i)) != expected[i]){
+                mismatches++;
+            }
+        }
+        boolean sequenceKept = reopened.lastSequence() == records;
+        reopened.close();
+
+        System.out.printf("appends: %.2f M durable changes/sec%n", records / writeSeconds / 1e6);
+        System.out.printf("restart: %.1f ms for %d changes%n", restartMillis, records);
+        System.out.println("mismatched SKUs after replay: " + mismatches);
+
+        try(Stream<Path> files = Files.walk(directory)){
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+
+        boolean passed = mismatches == 0 && sequenceKept;
+        System.out.println(passed ? "TEST PASSED: replay matches" : "TEST FAILED");
+        if(!passed){
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.tacos;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+// Streams "Product: <id> | Stock: <n>" lines for any number of products into a channel;
+// a product the inventory has no stock for reads "Stock: unavailable", as in ProductService.
+//
+// printProductInfo builds a String per line and goes through System.out; for a
+// full catalog that is the bottleneck. Here ids are pulled lazily in chunks,
+// each chunk is looked up with one getStocks call, and the line bytes are
+// written straight into a reusable direct buffer - no per-line String.
+//
+// With a render executor, chunks are looked up and encoded in parallel while
+// the calling thread writes finished chunks in their original order. At most
+// maxChunksInFlight chunk buffers exist at any time, so heap and direct
+// memory stay flat no matter how many products are exported.
+public class StockReportWriter {
+
+    private static final byte[] PRODUCT = "Product: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STOCK = " | Stock: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UNAVAILABLE = ProductService.UNAVAILABLE.getBytes(StandardCharsets.US_ASCII);
+    // "-2147483648" + '\n', which also covers "unavailable" + '\n'
+    private static final int MAX_NUMBER_BYTES = 12;
+
+    private final InventoryService inventoryService;
+    private final int chunkSize;
+    private final Executor renderExecutor;
+    private final int maxChunksInFlight;
+
+    // finished buffers come back here and are reused for later chunks
+    private final ConcurrentLinkedQueue<ByteBuffer> bufferPool = new ConcurrentLinkedQueue<>();
+
+    // sequential: everything happens on the calling thread
+    public StockReportWriter(InventoryService inventoryService, int chunkSize){
+        this(inventoryService, chunkSize, null, 1);
+    }
+
+    public StockReportWriter(InventoryService inventoryService, int chunkSize, Executor renderExecutor, int maxChunksInFlight){
+        if(chunkSize < 1){
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        if(maxChunksInFlight < 1){
+            throw new IllegalArgumentException("maxChunksInFlight must be positive: " + maxChunksInFlight);
+        }
+        this.inventoryService = inventoryService;
+        this.chunkSize = chunkSize;
+        this.renderExecutor = renderExecutor;
+        this.maxChunksInFlight = maxChunksInFlight;
+    }
+
+    public long write(Stream<String> productIds, Path file) throws IOException{
+        try(Stream<String> ids = productIds){
+            return write(ids.iterator(), file);
+        }
+    }
+
+    public long write(Iterable<String> productIds, Path file) throws IOException{
+        return write(productIds.iterator(), file);
+    }
+
+    public long write(Iterator<String> productIds, Path file) throws IOException{
+        try(FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            return write(productIds, channel);
+        }
+    }
+
+    // returns the number of lines written; the channel is left open
+    public long write(Iterator<String> productIds, WritableByteChannel out) throws IOException{
+        if(renderExecutor == null){
+            return writeSequential(productIds, out);
+        }
+        return writeParallel(productIds, out);
+    }
+
+    private long writeSequential(Iterator<String> productIds, WritableByteChannel out) throws IOException{
+        long lines = 0;
+        ByteBuffer buffer = borrowBuffer();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        while(productIds.hasNext()){
+            chunk.clear();
+            while(chunk.size() < chunkSize && productIds.hasNext()){
+                chunk.add(productIds.next());
+            }
+            buffer = render(chunk, buffer);
+            buffer.flip();
+            writeFully(out, buffer);
+            buffer.clear();
+            lines += chunk.size();
+        }
+        bufferPool.offer(buffer);
+        return lines;
+    }
+
+    private long writeParallel(Iterator<String> productIds, WritableByteChannel out) throws IOException{
+        long lines = 0;
+        ArrayDeque<CompletableFuture<ByteBuffer>> inFlight = new ArrayDeque<>();
+        try{
+            while(productIds.hasNext()){
+                List<String> chunk = new ArrayList<>(chunkSize);
+                while(chunk.size() < chunkSize && productIds.hasNext()){
+                    chunk.add(productIds.next());
+                }
+                lines += chunk.size();
+
+                if(inFlight.size() == maxChunksInFlight){
+                    // oldest chunk first - keeps the output in input order
+                    writeChunk(inFlight.poll(), out);
+                }
+                inFlight.add(CompletableFuture.supplyAsync(() -> render(chunk, borrowBuffer()).flip(), renderExecutor));
+            }
+            while(!inFlight.isEmpty()){
+                writeChunk(inFlight.poll(), out);
+            }
+        } finally {
+            // on failure let the remaining chunks finish and recycle their buffers
+            for(CompletableFuture<ByteBuffer> pending : inFlight){
+                pending.thenAccept(buffer -> bufferPool.offer(buffer.clear()));
+            }
+        }
+        return lines;
+    }
+
+    private void writeChunk(CompletableFuture<ByteBuffer> rendered, WritableByteChannel out) throws IOException{
+        ByteBuffer buffer;
+        try{
+            buffer = rendered.join();
+        } catch(CompletionException e){
+            if(e.getCause() instanceof RuntimeException cause){
+                throw cause;
+            }
+            throw e;
+        }
+        try{
+            writeFully(out, buffer);
+        } finally {
+            bufferPool.offer(buffer.clear());
+        }
+    }
+
+    private ByteBuffer render(List<String> chunk, ByteBuffer buffer){
+        Map<String, Integer> stocks = inventoryService.getStocks(chunk);
+        for(String productId : chunk){
+            Integer stock = stocks.get(productId);
+            int needed = PRODUCT.length + productId.length() * 3 + STOCK.length + MAX_NUMBER_BYTES;
+            if(buffer.remaining() < needed){
+                buffer = grow(buffer, needed);
+            }
+            buffer.put(PRODUCT);
+            putChars(buffer, productId);
+            buffer.put(STOCK);
+            if(stock == null){
+                buffer.put(UNAVAILABLE);
+            } else {
+                putInt(buffer, stock);
+            }
+            buffer.put((byte) '\n');
+        }
+        return buffer;
+    }
+
+    private ByteBuffer borrowBuffer(){
+        ByteBuffer buffer = bufferPool.poll();
+        if(buffer == null){
+            // ~32 bytes per line is typical for SKU-style ids
+            buffer = ByteBuffer.allocateDirect(Math.max(4096, chunkSize * 32));
+        }
+        return buffer;
+    }
+
+    // the chunk did not fit - the bigger buffer replaces this one in the pool for good
+    private static ByteBuffer grow(ByteBuffer buffer, int needed){
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + needed);
+        ByteBuffer bigger = ByteBuffer.allocateDirect(capacity);
+        buffer.flip();
+        bigger.put(buffer);
+        return bigger;
+    }
+
+    // UTF-8 without going through String.getBytes(): at most 3 bytes per char,
+    // since a 4-byte code point takes two chars
+    private static void putChars(ByteBuffer buffer, String s){
+        for(int i = 0; i < s.length(); ){
+            int c = s.codePointAt(i);
+            i += Character.charCount(c);
+            if(c < 0x80){
+                buffer.put((byte) c);
+            } else if(c < 0x800){
+                buffer.put((byte) (0xc0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else if(c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE){
+                // a lone surrogate has no UTF-8 form; replaced like String.getBytes does
+                buffer.put((byte) '?');
+            } else if(c < 0x10000){
+                buffer.put((byte) (0xe0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else {
+                buffer.put((byte) (0xf0 | (c >> 18)));
+                buffer.put((byte) (0x80 | ((c >> 12) & 0x3f)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+    }
+
+    private static void putInt(ByteBuffer buffer, int value){
+        long v = value;
+        if(v < 0){
+            buffer.put((byte) '-');
+            v = -v;
+        }
+        int digits = 1;
+        for(long p = 10; p <= v; p *= 10){
+            digits++;
+        }
+        int end = buffer.position() + digits;
+        for(int at = end - 1; at >= buffer.position(); at--){
+            buffer.put(at, (byte) ('0' + v % 10));
+            v /= 10;
+        }
+        buffer.position(end);
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException{
+        while(buffer.hasRemaining()){
+            out.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.tacos;
+
+// Write side of the inventory: stock can be held for a checkout, handed back,
+// or turned into a sale. getStock() reports what is still available to reserve.
+public interface StockReservationService extends InventoryService {
+
+    // returned by reserve when there is not enough stock
+    long NO_RESERVATION = 0;
+
+    // atomically holds quantity units and returns the reservation's id;
+    // NO_RESERVATION (and nothing held) if there is not enough stock
+    long reserve(String productId, int quantity);
+
+    // gives the reserved units back to the available stock;
+    // IllegalStateException if the reservation is unknown or already settled
+    void release(long reservationId);
+
+    // turns the reserved units into a sale - they never come back;
+    // IllegalStateException if the reservation is unknown or already settled
+    void commit(long reservationId);
+
+    int getReserved(String productId);
+}
@@ -0,0 +1,67 @@
+package com.example.tacos;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+// p99 with and without ResilientInventoryService in front of a backend with hiccups.
+//
+// The backend answers in 2ms, but 2% of the calls take 200ms. The same load
+// (a fixed number of callers, each doing lookups back to back) is sent once
+// straight to it and once through the resilience decorator; caller-side latency
+// percentiles are printed for both.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.tacos.TailLatencySimulation"
+//      optional args: <lookups> <concurrent callers>
+public class TailLatencySimulation {
+
+    public static void main(String[] args) throws Exception {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int callers = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        System.out.println("=== TAIL LATENCY: 2ms backend, 2% of calls take 200ms ===");
+        System.out.println("lookups=" + lookups + ", concurrent callers=" + callers);
+
+        try(ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()){
+            InventoryService backend = new SlowInventoryService(Duration.ofMillis(2), Duration.ofMillis(200), 0.02);
+
+            LatencyHistogram.Snapshot direct = run(backend, lookups, callers, executor);
+            print("direct", direct);
+
+            ResilientInventoryService resilient = new ResilientInventoryService(
+                backend, executor, Duration.ofMillis(50), 10_000, Duration.ofSeconds(5));
+            LatencyHistogram.Snapshot protectedCalls = run(resilient, lookups, callers, executor);
+            print("resilient", protectedCalls);
+
+            System.out.println("hedged calls: " + resilient.hedgeCount()
+                + ", answered from last known stock: " + resilient.fallbackCount()
+                + ", hedge delay: " + resilient.hedgeDelay());
+        }
+    }
+
+    private static LatencyHistogram.Snapshot run(InventoryService service, int lookups, int callers,
+                                                 ExecutorService executor) throws InterruptedException{
+        LatencyHistogram histogram = new LatencyHistogram();
+        Semaphore inFlight = new Semaphore(callers);
+        for(int i = 0; i < lookups; i++){
+            inFlight.acquire();
+            String productId = "SKU-" + (i % 500);
+            long started = System.nanoTime();
+            CompletableFuture.runAsync(() -> service.getStock(productId), executor)
+                .whenComplete((ignored, error) -> {
+                    histogram.record(System.nanoTime() - started);
+                    inFlight.release();
+                });
+        }
+        inFlight.acquire(callers);
+        return histogram.snapshot();
+    }
+
+    private static void print(String label, LatencyHistogram.Snapshot snapshot){
+        System.out.printf("%-10s p50=%6.1fms  p99=%6.1fms  p99.9=%6.1fms  max=%6.1fms%n", label,
+            snapshot.percentile(50) / 1e6, snapshot.percentile(99) / 1e6,
+            snapshot.percentile(99.9) / 1e6, snapshot.max() / 1e6);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.tacos;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Decorator: records the latency of every call into InventoryMetrics.
+// Cost per call is two System.nanoTime() reads and one atomic increment.
+public class TimedInventoryService implements InventoryService, AutoCloseable {
+
+    private final InventoryService delegate;
+    private final InventoryMetrics.Timer getStockTimer;
+    private final InventoryMetrics.Timer getStocksTimer;
+    private final InventoryMetrics.Timer getStockAsyncTimer;
+
+    public TimedInventoryService(InventoryService delegate, InventoryMetrics metrics){
+        this.delegate = delegate;
+        this.getStockTimer = metrics.timer(delegate.getClass(), "getStock");
+        this.getStocksTimer = metrics.timer(delegate.getClass(), "getStocks");
+        this.getStockAsyncTimer = metrics.timer(delegate.getClass(), "getStockAsync");
+    }
+
+    @Override
+    public int getStock(String productId){
+        long start = System.nanoTime();
+        try{
+            int stock = delegate.getStock(productId);
+            getStockTimer.record(System.nanoTime() - start);
+            return stock;
+        } catch(RuntimeException e){
+            getStockTimer.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getStocks(Collection<String> productIds){
+        long start = System.nanoTime();
+        try{
+            Map<String, Integer> stocks = delegate.getStocks(productIds);
+            getStocksTimer.record(System.nanoTime() - start);
+            return stocks;
+        } catch(RuntimeException e){
+            getStocksTimer.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    // measured until the future completes, not until it is handed out
+    @Override
+    public CompletableFuture<Integer> getStockAsync(String productId, Executor executor){
+        long start = System.nanoTime();
+        CompletableFuture<Integer> future;
+        try{
+            future = delegate.getStockAsync(productId, executor);
+        } catch(RuntimeException e){
+            getStockAsyncTimer.recordError(System.nanoTime() - start);
+            throw e;
+        }
+        return future.whenComplete((stock, error) -> {
+            if(error == null){
+                getStockAsyncTimer.record(System.nanoTime() - start);
+            } else {
+                getStockAsyncTimer.recordError(System.nanoTime() - start);
+            }
+        });
+    }
+
+    // a bean's destroy method runs on this wrapper, so pass it on
+    @Override
+    public void close(){
+        if(delegate instanceof AutoCloseable closeable){
+            try{
+                closeable.close();
+            } catch(RuntimeException e){
+                throw e;
+            } catch(Exception e){
+                throw new IllegalStateException("Could not close " + delegate, e);
+            }
+        }
+    }
+
+    protected InventoryService delegate(){
+        return delegate;
+    }
+
+    @Override
+    public String toString(){
+        return "Timed[" + delegate + "]";
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.tacos;
+
+// TimedInventoryService for beans that also take reservations - keeps the
+// StockReservationService type visible to the rest of the context.
+public class TimedStockReservationService extends TimedInventoryService implements StockReservationService {
+
+    private final StockReservationService delegate;
+    private final InventoryMetrics.Timer reserveTimer;
+    private final InventoryMetrics.Timer releaseTimer;
+    private final InventoryMetrics.Timer commitTimer;
+
+    public TimedStockReservationService(StockReservationService delegate, InventoryMetrics metrics){
+        super(delegate, metrics);
+        this.delegate = delegate;
+        this.reserveTimer = metrics.timer(delegate.getClass(), "reserve");
+        this.releaseTimer = metrics.timer(delegate.getClass(), "release");
+        this.commitTimer = metrics.timer(delegate.getClass(), "commit");
+    }
+
+    @Override
+    public long reserve(String productId, int quantity){
+        long start = System.nanoTime();
+        try{
+            long reservationId = delegate.reserve(productId, quantity);
+            reserveTimer.record(System.nanoTime() - start);
+            return reservationId;
+        } catch(RuntimeException e){
+            reserveTimer.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(long reservationId){
+        long start = System.nanoTime();
+        try{
+            delegate.release(reservationId);
+            releaseTimer.record(System.nanoTime() - start);
+        } catch(RuntimeException e){
+            releaseTimer.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void commit(long reservationId){
+        long start = System.nanoTime();
+        try{
+            delegate.commit(reservationId);
+            commitTimer.record(System.nanoTime() - start);
+        } catch(RuntimeException e){
+            commitTimer.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getReserved(String productId){
+        return delegate.getReserved(productId);
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.tacos.aot;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+// Build-time replacement for what Spring does at startup with a @Configuration class.
+//
+// For every @Configuration class X this writes X__BeanWiring, an
+// ApplicationContextInitializer<GenericApplicationContext> that registers each
+// @Bean method as a bean with a plain supplier. Inter-bean calls such as
+// productService() -> inventoryService() still have to return the singleton, which
+// is normally CGLIB's job (lab 04). Here a generated subclass overrides those
+// methods to fetch the bean from the context instead - the same trick, written out
+// as source at compile time, so startup needs no scanning, no reflection over
+// the configuration class and no CGLIB.
+//
+// Supported: public/protected/package @Bean methods (static or not), @Bean name
+// aliases, initMethod/destroyMethod (inferred by default, like Spring), and
+// method parameters resolved by type from the context.
+@SupportedAnnotationTypes(BeanWiringProcessor.CONFIGURATION)
+public class BeanWiringProcessor extends AbstractProcessor {
+
+    static final String CONFIGURATION = "org.springframework.context.annotation.Configuration";
+    static final String BEAN = "org.springframework.context.annotation.Bean";
+    static final String SUFFIX = "__BeanWiring";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion(){
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round){
+        for(TypeElement annotation : annotations){
+            for(Element element : round.getElementsAnnotatedWith(annotation)){
+                if(element.getKind() == ElementKind.CLASS){
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement config){
+        if(config.getModifiers().contains(Modifier.FINAL) || config.getModifiers().contains(Modifier.ABSTRACT)){
+            error(config, "@Configuration class must be neither final nor abstract to get generated wiring");
+            return;
+        }
+
+        List<BeanMethod> beans = new ArrayList<>();
+        for(Element member : config.getEnclosedElements()){
+            if(member.getKind() != ElementKind.METHOD){
+                continue;
+            }
+            AnnotationMirror bean = findAnnotation(member, BEAN);
+            if(bean == null){
+                continue;
+            }
+            ExecutableElement method = (ExecutableElement) member;
+            if(method.getModifiers().contains(Modifier.PRIVATE) || method.getModifiers().contains(Modifier.FINAL)){
+                error(method, "@Bean method must be neither private nor final to get generated wiring");
+                return;
+            }
+            beans.add(new BeanMethod(method, bean));
+        }
+
+        String packageName = ((PackageElement) config.getEnclosingElement()).getQualifiedName().toString();
+        String configName = config.getSimpleName().toString();
+        String className = configName + SUFFIX;
+
+        try{
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName + "." + className, config);
+            try(PrintWriter out = new PrintWriter(file.openWriter())){
+                write(out, packageName, configName, className, beans);
+            }
+        } catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(PrintWriter out, String packageName, String configName, String className, List<BeanMethod> beans){
+        out.println("package " + packageName + ";");
+        out.println();
+        out.println("import org.springframework.beans.factory.support.AbstractBeanDefinition;");
+        out.println("import org.springframework.context.ApplicationContextInitializer;");
+        out.println("import org.springframework.context.support.GenericApplicationContext;");
+        out.println();
+        out.println("// generated by " + getClass().getName() + " from " + configName + " - do not edit");
+        out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        out.println("public final class " + className + " implements ApplicationContextInitializer<GenericApplicationContext> {");
+        out.println();
+        out.println("    @Override");
+        out.println("    public void initialize(GenericApplicationContext context){");
+        out.println("        Config config = new Config(context);");
+        for(BeanMethod bean : beans){
+            out.println();
+            out.println("        context.registerBean(\"" + bean.name + "\", (Class) " + bean.rawType + ".class, "
+                + (bean.isStatic ? "() -> " + configName + "." + bean.methodName + "(" + bean.arguments() + ")"
+                                 : "config::create$" + bean.methodName)
+                + ", definition -> {");
+            out.println("            definition.setInitMethodName(" + literal(bean.initMethod) + ");");
+            out.println("            definition.setDestroyMethodName(" + destroyLiteral(bean.destroyMethod) + ");");
+            out.println("        });");
+            for(String alias : bean.aliases){
+                out.println("        context.registerAlias(\"" + bean.name + "\", \"" + alias + "\");");
+            }
+        }
+        out.println("    }");
+        out.println();
+
+        // subclass standing in for the CGLIB proxy
+        out.println("    static final class Config extends " + configName + " {");
+        out.println();
+        out.println("        private final GenericApplicationContext context;");
+        out.println();
+        out.println("        Config(GenericApplicationContext context){");
+        out.println("            this.context = context;");
+        out.println("        }");
+        for(BeanMethod bean : beans){
+            if(bean.isStatic){
+                continue;
+            }
+            out.println();
+            out.println("        // inter-bean call: hand out the container's singleton");
+            out.println("        @Override");
+            out.println("        " + bean.visibility + bean.returnType + " " + bean.methodName + "(" + bean.parameters() + "){");
+            out.println("            return (" + bean.returnType + ") context.getBean(\"" + bean.name + "\");");
+            out.println("        }");
+            out.println();
+            out.println("        " + bean.returnType + " create$" + bean.methodName + "(){");
+            out.println("            return super." + bean.methodName + "(" + bean.arguments() + ");");
+            out.println("        }");
+        }
+        out.println("    }");
+        out.println("}");
+    }
+
+    private static String literal(String value){
+        return value == null ? "null" : "\"" + value + "\"";
+    }
+
+    // @Bean's default destroyMethod is "(inferred)": close()/shutdown() if the bean has one
+    private static String destroyLiteral(String value){
+        return value == null ? "AbstractBeanDefinition.INFER_METHOD" : literal(value);
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String type){
+        for(AnnotationMirror mirror : element.getAnnotationMirrors()){
+            if(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(type)){
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private void error(Element element, String message){
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private final class BeanMethod {
+        final String methodName;
+        final String returnType;
+        final String rawType;
+        final boolean isStatic;
+        final String visibility;
+        final List<VariableElement> params;
+        final String name;
+        final List<String> aliases = new ArrayList<>();
+        String initMethod;
+        String destroyMethod;
+
+        BeanMethod(ExecutableElement method, AnnotationMirror bean){
+            this.methodName = method.getSimpleName().toString();
+            TypeMirror type = method.getReturnType();
+            this.returnType = type.toString();
+            this.rawType = processingEnv.getTypeUtils().erasure(type).toString();
+            this.isStatic = method.getModifiers().contains(Modifier.STATIC);
+            this.visibility = method.getModifiers().contains(Modifier.PUBLIC) ? "public "
+                : method.getModifiers().contains(Modifier.PROTECTED) ? "protected " : "";
+            this.params = new ArrayList<>(method.getParameters());
+
+            List<String> names = new ArrayList<>();
+            for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : bean.getElementValues().entrySet()){
+                String attribute = entry.getKey().getSimpleName().toString();
+                Object value = entry.getValue().getValue();
+                switch(attribute){
+                    case "name", "value" -> {
+                        for(Object item : (List<?>) value){
+                            names.add(((AnnotationValue) item).getValue().toString());
+                        }
+                    }
+                    case "initMethod" -> initMethod = value.toString().isEmpty() ? null : value.toString();
+                    case "destroyMethod" -> destroyMethod = value.toString();
+                    default -> { }
+                }
+            }
+            this.name = names.isEmpty() ? methodName : names.get(0);
+            if(names.size() > 1){
+                aliases.addAll(names.subList(1, names.size()));
+            }
+        }
+
+        String parameters(){
+            StringBuilder sb = new StringBuilder();
+            for(int i = 0; i < params.size(); i++){
+                if(i > 0){
+                    sb.append(", ");
+                }
+                sb.append(params.get(i).asType()).append(' ').append(params.get(i).getSimpleName());
+            }
+            return sb.toString();
+        }
+
+        // parameters are resolved by type, like @Bean method autowiring
+        String arguments(){
+            StringBuilder sb = new StringBuilder();
+            for(int i = 0; i < params.size(); i++){
+                if(i > 0){
+                    sb.append(", ");
+                }
+                TypeMirror type = params.get(i).asType();
+                String raw = processingEnv.getTypeUtils().erasure(type).toString();
+                sb.append(isStatic ? "context" : "this.context").append(".getBean(").append(raw).append(".class)");
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package com.example.demo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Small JDBC connection pool with a prepared-statement cache per connection.
+//
+// DriverManager.getConnection opens a new session for every call, and every
+// conn.prepareStatement(sql) parses and plans the SQL again. Here:
+//   - between minSize and maxSize physical connections are kept open
+//   - borrow/return is a Semaphore permit plus a lock-free deque, no pool-wide lock;
+//     the most recently returned connection is handed out first (it is warm)
+//   - a connection that sat idle longer than validateAfterIdle is checked with
+//     isValid() before it is handed out, and replaced if it died
+//   - a connection held longer than leakThreshold is reported once, with the
+//     stack trace of the code that borrowed it
+//   - prepareStatement(sql) on a pooled connection is served from an LRU cache
+//     of statementCacheSize statements keyed by SQL; ps.close() puts it back.
+//     A statement evicted while it is still in use is closed when its user closes it.
+//
+// conn.close() returns the connection to the pool, so code written for
+// DriverManager (like Main.insertItems) works unchanged. Statements handed out
+// stop working once they are closed or their connection is returned, and
+// stmt.getConnection() gives back the pooled connection, never the physical one.
+public class ConnectionPool implements AutoCloseable {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int statementCacheSize;
+    private final long validateAfterIdleNanos;
+    private final long leakThresholdNanos;
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Pooled> idle = new ConcurrentLinkedDeque<>();
+    private final Set<Pooled> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // 2..10 connections, 64 cached statements each, validate after 30s idle, report leaks after 60s
+    public ConnectionPool(String url, String user, String password){
+        this(url, user, password, 2, 10, 64, Duration.ofSeconds(30), Duration.ofSeconds(60));
+    }
+
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          int statementCacheSize, Duration validateAfterIdle, Duration leakThreshold){
+        if(minSize < 0 || maxSize < 1 || minSize > maxSize){
+            throw new IllegalArgumentException("need 0 <= minSize <= maxSize and maxSize >= 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.statementCacheSize = statementCacheSize;
+        this.validateAfterIdleNanos = validateAfterIdle.toNanos();
+        this.leakThresholdNanos = leakThreshold.toNanos();
+        this.permits = new Semaphore(maxSize);
+
+        for(int i = 0; i < minSize; i++){
+            try{
+                idle.push(openConnection());
+            } catch(SQLException e){
+                closeAll(idle);
+                throw new IllegalStateException("Could not open " + url, e);
+            }
+        }
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = leakThresholdNanos > 0 ? Math.max(1, Math.min(leakThreshold.toMillis(), 1_000)) : 1_000;
+        housekeeper.scheduleAtFixedRate(this::housekeeping, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // waits up to 30 seconds for a free connection
+    public Connection getConnection() throws SQLException{
+        return getConnection(Duration.ofSeconds(30));
+    }
+
+    public Connection getConnection(Duration timeout) throws SQLException{
+        if(closed){
+            throw new SQLException("Connection pool is closed");
+        }
+        try{
+            if(!permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)){
+                throw new SQLException("No connection available within " + timeout + " (" + open.get() + " open)");
+            }
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try{
+            Pooled pooled;
+            while((pooled = idle.poll()) != null){
+                if(System.nanoTime() - pooled.returnedAt < validateAfterIdleNanos || pooled.physical.isValid(1)){
+                    break;
+                }
+                discard(pooled);
+            }
+            if(pooled == null){
+                pooled = openConnection();
+            }
+            return pooled.lend(leakThresholdNanos > 0);
+        } catch(SQLException | RuntimeException e){
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int openCount(){
+        return open.get();
+    }
+
+    public int idleCount(){
+        return idle.size();
+    }
+
+    @Override
+    public void close(){
+        closed = true;
+        if(housekeeper != null){
+            housekeeper.shutdownNow();
+        }
+        Pooled pooled;
+        while((pooled = idle.poll()) != null){
+            discard(pooled);
+        }
+        // borrowed ones are closed when they come back
+    }
+
+    private Pooled openConnection() throws SQLException{
+        Pooled pooled = new Pooled(DriverManager.getConnection(url, user, password));
+        open.incrementAndGet();
+        return pooled;
+    }
+
+    private void giveBack(Pooled pooled){
+        borrowed.remove(pooled);
+        try{
+            if(closed || pooled.physical.isClosed()){
+                discard(pooled);
+                return;
+            }
+            // the next borrower starts with a clean session
+            pooled.closeStatements();
+            if(!pooled.physical.getAutoCommit()){
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.returnedAt = System.nanoTime();
+            idle.push(pooled);
+        } catch(SQLException e){
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(Pooled pooled){
+        open.decrementAndGet();
+        try{
+            pooled.physical.close();
+        } catch(SQLException ignored){
+            // already broken
+        }
+    }
+
+    private void housekeeping(){
+        // connections that died or were discarded are replaced up to minSize
+        while(!closed && open.get() < minSize){
+            try{
+                idle.push(openConnection());
+            } catch(SQLException e){
+                break;
+            }
+        }
+
+        long now = System.nanoTime();
+        for(Pooled pooled : borrowed){
+            Throwable borrowedAt = pooled.borrowedAt;
+            if(borrowedAt != null && !pooled.leakReported && now - pooled.borrowedNanos > leakThresholdNanos){
+                pooled.leakReported = true;
+                System.err.println("Possible connection leak: held for "
+                    + (now - pooled.borrowedNanos) / 1_000_000 + " ms, borrowed here:");
+                borrowedAt.printStackTrace();
+            }
+        }
+    }
+
+    // One physical connection, its statement cache and its current loan.
+    private final class Pooled {
+        final Connection physical;
+        // access-ordered = LRU; only touched by the thread that holds the connection
+        final Map<String, PreparedStatement> statements;
+        // cached statements currently handed out - asking for the same SQL again gets a fresh one
+        final Set<PreparedStatement> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+        // handed out, then pushed out of the cache: closed once their user is done with them
+        final Set<PreparedStatement> evicted = Collections.newSetFromMap(new IdentityHashMap<>());
+        // uncached statements of the current loan, closed when the connection comes back
+        final Set<Statement> loose = Collections.newSetFromMap(new IdentityHashMap<>());
+        volatile long returnedAt = System.nanoTime();
+        volatile long borrowedNanos;
+        volatile Throwable borrowedAt;
+        volatile boolean leakReported;
+
+        Pooled(Connection physical){
+            this.physical = physical;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true){
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest){
+                    if(size() <= statementCacheSize){
+                        return false;
+                    }
+                    PreparedStatement statement = eldest.getValue();
+                    if(inUse.contains(statement)){
+                        // someone may still be reading its ResultSet
+                        evicted.add(statement);
+                    } else {
+                        closeQuietly(statement);
+                    }
+                    return true;
+                }
+            };
+        }
+
+        Connection lend(boolean trackLeaks){
+            borrowedNanos = System.nanoTime();
+            borrowedAt = trackLeaks ? new Throwable("connection borrowed") : null;
+            leakReported = false;
+            borrowed.add(this);
+            Loan loan = new Loan(this);
+            loan.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, loan);
+            return loan.proxy;
+        }
+
+        PreparedStatement prepare(Loan loan, String sql) throws SQLException{
+            PreparedStatement cached = statements.get(sql);
+            if(cached != null && inUse.contains(cached)){
+                return (PreparedStatement) loan.handOut(PreparedStatement.class, physical.prepareStatement(sql), false);
+            }
+            if(cached == null || cached.isClosed()){
+                cached = physical.prepareStatement(sql);
+                statements.put(sql, cached);
+            }
+            inUse.add(cached);
+            return (PreparedStatement) loan.handOut(PreparedStatement.class, cached, true);
+        }
+
+        // a handed-out statement was closed by its user
+        void release(Statement statement, boolean cached){
+            if(!cached){
+                loose.remove(statement);
+                closeQuietly(statement);
+            } else if(inUse.remove(statement)){
+                if(evicted.remove(statement)){
+                    closeQuietly(statement);
+                    return;
+                }
+                PreparedStatement ps = (PreparedStatement) statement;
+                try{
+                    // back into the cache instead of closing
+                    ps.clearParameters();
+                    ps.clearBatch();
+                } catch(SQLException e){
+                    statements.values().remove(ps);
+                    closeQuietly(ps);
+                }
+            }
+        }
+
+        // the connection is coming back: whatever the borrower left open is settled here
+        void closeStatements(){
+            for(PreparedStatement statement : inUse.toArray(new PreparedStatement[0])){
+                release(statement, true);
+            }
+            for(Statement statement : loose){
+                closeQuietly(statement);
+            }
+            loose.clear();
+        }
+    }
+
+    // The Connection handed to callers; close() returns it, after that it is dead.
+    private final class Loan implements InvocationHandler {
+        private Pooled pooled;
+        private Connection proxy;
+
+        Loan(Pooled pooled){
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable{
+            String name = method.getName();
+            int params = method.getParameterCount();
+            if(name.equals("close") && params == 0){
+                Pooled returning = pooled;
+                pooled = null;
+                if(returning != null){
+                    giveBack(returning);
+                }
+                return null;
+            }
+            if(name.equals("isClosed") && params == 0){
+                return pooled == null;
+            }
+            if(name.equals("equals") && params == 1){
+                return proxy == args[0];
+            }
+            if(name.equals("hashCode") && params == 0){
+                return System.identityHashCode(proxy);
+            }
+            if(name.equals("toString") && params == 0){
+                return "pooled " + (pooled == null ? "(returned)" : pooled.physical.toString());
+            }
+            if(pooled == null){
+                throw new SQLException("Connection was returned to the pool");
+            }
+            if(name.equals("prepareStatement") && params == 1 && statementCacheSize > 0){
+                return pooled.prepare(this, (String) args[0]);
+            }
+            Object result = ConnectionPool.invoke(pooled.physical, method, args);
+            if(result instanceof Statement statement){
+                // createStatement, prepareCall and the other prepareStatement variants
+                return handOut(method.getReturnType(), statement, false);
+            }
+            return result;
+        }
+
+        // the borrower's view of a statement: dead after close() or once the connection
+        // is returned, and getConnection() answers with this loan
+        Object handOut(Class<?> type, Statement statement, boolean cached){
+            Pooled owner = pooled;
+            if(!cached){
+                owner.loose.add(statement);
+            }
+            boolean[] closed = {false};
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (handle, method, args) -> {
+                String name = method.getName();
+                int params = method.getParameterCount();
+                if(name.equals("close") && params == 0){
+                    if(!closed[0] && pooled == owner){
+                        owner.release(statement, cached);
+                    }
+                    closed[0] = true;
+                    return null;
+                }
+                if(name.equals("isClosed") && params == 0){
+                    return closed[0] || pooled != owner;
+                }
+                if(name.equals("equals") && params == 1){
+                    return handle == args[0];
+                }
+                if(name.equals("hashCode") && params == 0){
+                    return System.identityHashCode(handle);
+                }
+                if(name.equals("toString") && params == 0){
+                    return "pooled " + statement;
+                }
+                if(closed[0]){
+                    throw new SQLException("Statement is closed");
+                }
+                if(pooled != owner){
+                    throw new SQLException("Connection was returned to the pool");
+                }
+                if(name.equals("getConnection") && params == 0){
+                    return proxy;
+                }
+                return ConnectionPool.invoke(statement, method, args);
+            });
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable{
+        try{
+            return method.invoke(target, args);
+        } catch(InvocationTargetException e){
+            throw e.getCause();
+        }
+    }
+
+    private static void closeQuietly(Statement statement){
+        try{
+            statement.close();
+        } catch(SQLException ignored){
+            // evicted anyway
+        }
+    }
+
+    // for the constructor: nothing else has seen these connections yet
+    private static void closeAll(ConcurrentLinkedDeque<Pooled> connections){
+        Pooled pooled;
+        while((pooled = connections.poll()) != null){
+            try{
+                pooled.physical.close();
+            } catch(SQLException ignored){
+                // the pool is not going to be used
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Main's createSchema / insertItems / findAllItems from many threads through ConnectionPool,
+// then the cost of a single-row lookup with a new DriverManager connection per call
+// vs a pooled connection with a cached prepared statement. Finally, statements handed
+// out by a pool with a tiny cache must survive eviction while in use, die on close(),
+// and never expose the physical connection.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.demo.ConnectionPoolSimulation"
+//      optional args: <threads> <lookups per thread>
+public class ConnectionPoolSimulation {
+
+    // DB_CLOSE_DELAY=-1 keeps the in-memory database alive between connections
+    private static final String URL = "jdbc:h2:mem:pooldemo;DB_CLOSE_DELAY=-1";
+    private static final String LOOKUP = "select name, price from item where id = ?";
+
+    public static void main(String[] args) throws Exception{
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        System.out.println("=== CONNECTION POOL ===");
+        try(ConnectionPool pool = new ConnectionPool(URL, "sa", "", 2, threads, 64,
+                Duration.ofSeconds(30), Duration.ofSeconds(10))){
+
+            try(Connection conn = pool.getConnection()){
+                Main.createSchema(conn);
+            }
+
+            // every thread inserts its own items, unchanged Main code
+            AtomicLong nextId = new AtomicLong(1);
+            runThreads(threads, () -> {
+                for(int i = 0; i < 5; i++){
+                    long id = nextId.getAndIncrement();
+                    try(Connection conn = pool.getConnection()){
+                        Main.insertItems(conn, id, "Item " + id, id * 10.0);
+                    }
+                }
+            });
+            try(Connection conn = pool.getConnection()){
+                System.out.println("items after concurrent inserts: " + Main.findAllItems(conn).size());
+            }
+            System.out.println("physical connections opened: " + pool.openCount());
+
+            long items = nextId.get() - 1;
+            long started = System.nanoTime();
+            runThreads(threads, () -> {
+                for(int i = 0; i < lookups; i++){
+                    try(Connection conn = DriverManager.getConnection(URL, "sa", "")){
+                        lookup(conn, 1 + i % items);
+                    }
+                }
+            });
+            report("new connection per lookup ", threads * (long) lookups, System.nanoTime() - started);
+
+            started = System.nanoTime();
+            runThreads(threads, () -> {
+                for(int i = 0; i < lookups; i++){
+                    try(Connection conn = pool.getConnection()){
+                        lookup(conn, 1 + i % items);
+                    }
+                }
+            });
+            report("pooled + statement cache  ", threads * (long) lookups, System.nanoTime() - started);
+            System.out.println("physical connections opened: " + pool.openCount());
+        }
+
+        boolean passed = checkStatements();
+        System.out.println(passed ? "TEST PASSED: pooled statements behave" : "TEST FAILED");
+        if(!passed){
+            System.exit(1);
+        }
+    }
+
+    // a cache of 2 statements, and an outer query that stays open while 3 others are prepared
+    private static boolean checkStatements() throws Exception{
+        boolean passed = true;
+        try(ConnectionPool pool = new ConnectionPool(URL, "sa", "", 1, 1, 2,
+                Duration.ofSeconds(30), Duration.ofSeconds(10));
+            Connection conn = pool.getConnection()){
+            int rows = 0;
+            try(PreparedStatement outer = conn.prepareStatement("select id from item order by id");
+                ResultSet rs = outer.executeQuery()){
+                while(rs.next()){
+                    for(String sql : new String[]{LOOKUP, "select price from item where id = ?", "select name from item where id = ?"}){
+                        try(PreparedStatement inner = conn.prepareStatement(sql)){
+                            inner.setLong(1, rs.getLong(1));
+                            try(ResultSet innerRs = inner.executeQuery()){
+                                innerRs.next();
+                            }
+                        }
+                    }
+                    rows++;
+                }
+                if(outer.getConnection() != conn){
+                    System.out.println("getConnection() exposed the physical connection");
+                    passed = false;
+                }
+            } catch(Exception e){
+                System.out.println("outer statement broke after eviction: " + e);
+                passed = false;
+            }
+            System.out.println("outer rows read while the cache churned: " + rows);
+
+            PreparedStatement closed = conn.prepareStatement(LOOKUP);
+            closed.close();
+            try{
+                closed.setLong(1, 1);
+                closed.executeQuery().close();
+                System.out.println("statement still usable after close()");
+                passed = false;
+            } catch(SQLException expected){
+                // closed
+            }
+        }
+        return passed;
+    }
+
+    private static void lookup(Connection conn, long id) throws Exception{
+        try(PreparedStatement ps = conn.prepareStatement(LOOKUP)){
+            ps.setLong(1, id);
+            try(ResultSet rs = ps.executeQuery()){
+                if(!rs.next()){
+                    throw new IllegalStateException("item " + id + " not found");
+                }
+            }
+        }
+    }
+
+    private interface Work {
+        void run() throws Exception;
+    }
+
+    private static void runThreads(int threads, Work work) throws InterruptedException{
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for(int t = 0; t < threads; t++){
+            Thread worker = new Thread(() -> {
+                try{
+                    work.run();
+                } catch(Exception e){
+                    synchronized(failures){
+                        failures.add(e);
+                    }
+                }
+            }, "item-worker-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        for(Thread worker : workers){
+            worker.join();
+        }
+        if(!failures.isEmpty()){
+            throw new IllegalStateException("worker failed", failures.get(0));
+        }
+    }
+
+    private static void report(String label, long operations, long nanos){
+        System.out.printf("%s: %.0f lookups/sec%n", label, operations * 1e9 / nanos);
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.demo;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// RowMapper for any class that takes its columns through a constructor, e.g.
+//   RowMapper<Item> items = ConstructorRowMapper.of(Item.class);
+//
+// Reflection happens once, up front: the widest public constructor is picked and
+// each parameter gets a name - the record component, the parameter name (when
+// compiled with -parameters) or else the one instance field of the parameter's type.
+// Without -parameters, a constructor with two parameters of the same type is rejected:
+// the order of getDeclaredFields() is unspecified, so it cannot tell them apart.
+//
+// The first row of every ResultSet binds the mapper to that result's columns:
+// each parameter is matched to a column label (case and underscores ignored) and
+// one MethodHandle is composed: new T(rs.getLong(1), rs.getString(2), ...).
+// Every later row just invokes that handle - no name lookups, no reflection,
+// which is what a hand-written loop with column positions does. Bindings are
+// cached per column layout, so one mapper can serve many queries and threads.
+// Each thread remembers the binding of the last few ResultSets it mapped, so
+// mapping another query's rows costs at most one metadata read per ResultSet; the
+// newest binding is also kept in a field for the single-threaded loop. ResultSets
+// are only referenced weakly, so a finished one is never kept alive by the mapper.
+public class ConstructorRowMapper<T> implements RowMapper<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType ROW = MethodType.methodType(Object.class, ResultSet.class);
+    // ResultSets per thread with their binding at hand - enough for a few nested loops
+    private static final int RECENT = 4;
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final String[] names;
+    private final Class<?>[] parameterTypes;
+
+    private final Map<String, MethodHandle> bindingsByColumns = new ConcurrentHashMap<>();
+    // most recently used first
+    private final ThreadLocal<Binding[]> recent = ThreadLocal.withInitial(() -> new Binding[RECENT]);
+    // the binding made last, by any thread; a Binding is immutable, so a racy read is fine
+    private Binding newest = new Binding(new WeakReference<>(null), null);
+
+    private ConstructorRowMapper(Class<T> type){
+        this.type = type;
+        Constructor<?> widest = null;
+        for(Constructor<?> candidate : type.getConstructors()){
+            if(widest == null || candidate.getParameterCount() > widest.getParameterCount()){
+                widest = candidate;
+            }
+        }
+        if(widest == null || widest.getParameterCount() == 0){
+            throw new IllegalArgumentException(type.getName() + " has no public constructor with parameters");
+        }
+        this.parameterTypes = widest.getParameterTypes();
+        this.names = parameterNames(type, widest);
+        try{
+            this.constructor = LOOKUP.unreflectConstructor(widest);
+        } catch(IllegalAccessException e){
+            throw new IllegalArgumentException("Cannot access constructor of " + type.getName(), e);
+        }
+    }
+
+    public static <T> ConstructorRowMapper<T> of(Class<T> type){
+        return new ConstructorRowMapper<>(type);
+    }
+
+    @Override
+    public T mapRow(ResultSet rs) throws SQLException{
+        Binding binding = newest;
+        MethodHandle handle = binding.rs.get() == rs ? binding.handle : recentHandle(rs);
+        try{
+            return type.cast((Object) handle.invokeExact(rs));
+        } catch(SQLException | RuntimeException | Error e){
+            throw e;
+        } catch(Throwable e){
+            throw new IllegalStateException("Could not map row to " + type.getName(), e);
+        }
+    }
+
+    private MethodHandle recentHandle(ResultSet rs) throws SQLException{
+        Binding[] bindings = recent.get();
+        for(Binding binding : bindings){
+            if(binding != null && binding.rs.get() == rs){
+                return binding.handle;
+            }
+        }
+        Binding binding = new Binding(new WeakReference<>(rs), bind(rs.getMetaData()));
+        System.arraycopy(bindings, 0, bindings, 1, RECENT - 1);
+        bindings[0] = binding;
+        newest = binding;
+        return binding.handle;
+    }
+
+    // (ResultSet) -> T for this column layout
+    private MethodHandle bind(ResultSetMetaData meta) throws SQLException{
+        int count = meta.getColumnCount();
+        String[] labels = new String[count];
+        for(int i = 0; i < count; i++){
+            labels[i] = normalize(meta.getColumnLabel(i + 1));
+        }
+        String layout = String.join(",", labels);
+        MethodHandle cached = bindingsByColumns.get(layout);
+        if(cached != null){
+            return cached;
+        }
+
+        MethodHandle[] getters = new MethodHandle[names.length];
+        for(int p = 0; p < names.length; p++){
+            int column = Arrays.asList(labels).indexOf(normalize(names[p])) + 1;
+            if(column == 0){
+                throw new SQLException("No column for " + type.getSimpleName() + "." + names[p] + " in " + layout);
+            }
+            getters[p] = MethodHandles.insertArguments(getter(parameterTypes[p]), 1, column);
+        }
+        // new T(getter0(rs), getter1(rs), ...) with every getter reading the same rs
+        MethodHandle handle = MethodHandles.filterArguments(constructor, 0, getters);
+        handle = MethodHandles.permuteArguments(handle,
+            MethodType.methodType(constructor.type().returnType(), ResultSet.class), new int[names.length]);
+        handle = handle.asType(ROW);
+        bindingsByColumns.putIfAbsent(layout, handle);
+        return handle;
+    }
+
+    // (ResultSet, int column) -> value of the parameter type
+    private static MethodHandle getter(Class<?> type){
+        try{
+            if(type == long.class){
+                return resultSet("getLong", long.class);
+            }
+            if(type == int.class){
+                return resultSet("getInt", int.class);
+            }
+            if(type == double.class){
+                return resultSet("getDouble", double.class);
+            }
+            if(type == float.class){
+                return resultSet("getFloat", float.class);
+            }
+            if(type == short.class){
+                return resultSet("getShort", short.class);
+            }
+            if(type == byte.class){
+                return resultSet("getByte", byte.class);
+            }
+            if(type == boolean.class){
+                return resultSet("getBoolean", boolean.class);
+            }
+            if(type == String.class){
+                return resultSet("getString", String.class);
+            }
+            if(type == BigDecimal.class){
+                return resultSet("getBigDecimal", BigDecimal.class);
+            }
+            if(type == Long.class || type == Integer.class || type == Double.class){
+                // primitive read plus wasNull(), so SQL NULL stays null
+                return LOOKUP.findStatic(ConstructorRowMapper.class, "nullable" + type.getSimpleName(),
+                    MethodType.methodType(type, ResultSet.class, int.class));
+            }
+            // anything else (dates, UUIDs, ...) through the driver's type conversion
+            MethodHandle getObject = LOOKUP.findVirtual(ResultSet.class, "getObject",
+                MethodType.methodType(Object.class, int.class, Class.class));
+            return MethodHandles.insertArguments(getObject, 2, type)
+                .asType(MethodType.methodType(type, ResultSet.class, int.class));
+        } catch(ReflectiveOperationException e){
+            throw new IllegalStateException("No ResultSet getter for " + type.getName(), e);
+        }
+    }
+
+    private static MethodHandle resultSet(String name, Class<?> returnType) throws ReflectiveOperationException{
+        return LOOKUP.findVirtual(ResultSet.class, name, MethodType.methodType(returnType, int.class));
+    }
+
+    private static Long nullableLong(ResultSet rs, int column) throws SQLException{
+        long value = rs.getLong(column);
+        return value == 0 && rs.wasNull() ? null : value;
+    }
+
+    private static Integer nullableInteger(ResultSet rs, int column) throws SQLException{
+        int value = rs.getInt(column);
+        return value == 0 && rs.wasNull() ? null : value;
+    }
+
+    private static Double nullableDouble(ResultSet rs, int column) throws SQLException{
+        double value = rs.getDouble(column);
+        return value == 0 && rs.wasNull() ? null : value;
+    }
+
+    private static String[] parameterNames(Class<?> type, Constructor<?> constructor){
+        int count = constructor.getParameterCount();
+        if(type.isRecord()){
+            RecordComponent[] components = type.getRecordComponents();
+            if(components.length == count){
+                return Arrays.stream(components).map(RecordComponent::getName).toArray(String[]::new);
+            }
+        }
+        Parameter[] parameters = constructor.getParameters();
+        if(parameters[0].isNamePresent()){
+            return Arrays.stream(parameters).map(Parameter::getName).toArray(String[]::new);
+        }
+        // no -parameters: every parameter must match exactly one instance field by type
+        List<Field> fields = new ArrayList<>();
+        for(Field field : type.getDeclaredFields()){
+            if(!Modifier.isStatic(field.getModifiers())){
+                fields.add(field);
+            }
+        }
+        String[] names = new String[count];
+        for(int p = 0; p < count; p++){
+            Class<?> parameterType = parameters[p].getType();
+            List<Field> matches = fields.stream().filter(field -> field.getType() == parameterType).toList();
+            long sameType = Arrays.stream(parameters).filter(other -> other.getType() == parameterType).count();
+            if(fields.size() != count || matches.size() != 1 || sameType != 1){
+                throw new IllegalArgumentException("Cannot tell which column goes to which constructor parameter of "
+                    + type.getName() + "; compile with -parameters");
+            }
+            names[p] = matches.get(0).getName();
+        }
+        return names;
+    }
+
+    private static String normalize(String name){
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private record Binding(WeakReference<ResultSet> rs, MethodHandle handle) { }
+}
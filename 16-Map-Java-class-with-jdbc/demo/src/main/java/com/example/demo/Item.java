@@ -13,6 +13,18 @@ public class Item{
         this.price = price;
     }
 
+    public Long getId(){
+        return id;
+    }
+
+    public String getName(){
+        return name;
+    }
+
+    public double getPrice(){
+        return price;
+    }
+
     @Override
     public String toString(){
         return "ItemId = " + id + ", name = " + name + ", price = " + price;
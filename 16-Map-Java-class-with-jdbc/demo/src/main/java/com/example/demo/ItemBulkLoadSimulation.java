@@ -0,0 +1,70 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Rows/sec for the per-row insert of Main.insertItems vs ItemBulkLoader.
+//
+// Every run gets its own fresh in-memory database. The per-row run does what
+// insertItems does (prepare, execute, close, auto-commit) minus the println,
+// on fewer rows - at that pace 10M rows would take far too long.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.demo.ItemBulkLoadSimulation"
+//      optional arg: <rows>   (10000000 needs a bigger heap, e.g. MAVEN_OPTS=-Xmx4g)
+public class ItemBulkLoadSimulation {
+
+    public static void main(String[] args) throws Exception{
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long perRowRows = Math.min(rows, 50_000);
+
+        System.out.println("=== ITEM BULK LOAD ===");
+
+        try(Connection conn = freshDatabase("perrow")){
+            long started = System.nanoTime();
+            for(long id = 1; id <= perRowRows; id++){
+                PreparedStatement ps = conn.prepareStatement("insert into item(id, name, price) values (?, ?, ?)");
+                ps.setLong(1, id);
+                ps.setString(2, "Item " + id);
+                ps.setDouble(3, id % 1000 + 0.99);
+                ps.executeUpdate();
+                ps.close();
+            }
+            long nanos = System.nanoTime() - started;
+            System.out.println("per-row insertItems style : " + new ItemBulkLoader.Result(perRowRows, nanos));
+        }
+
+        run("batched, 1 row/statement  ", rows, 1_000, 1);
+        run("batched, 100 rows/statement", rows, 100, 100);
+    }
+
+    private static void run(String label, long rows, int batchSize, int rowsPerStatement) throws Exception{
+        try(Connection conn = freshDatabase("bulk" + rowsPerStatement)){
+            ItemBulkLoader loader = new ItemBulkLoader(conn, batchSize, rowsPerStatement, 100_000);
+            ItemBulkLoader.Result result = loader.load(items(rows));
+            System.out.println(label + ": " + result);
+
+            try(Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("select count(*) from item")){
+                rs.next();
+                if(rs.getLong(1) != rows){
+                    throw new IllegalStateException("expected " + rows + " rows, found " + rs.getLong(1));
+                }
+            }
+        }
+    }
+
+    // generated lazily - no list of 10M items in memory
+    private static Stream<Item> items(long rows){
+        return LongStream.rangeClosed(1, rows).mapToObj(id -> new Item(id, "Item " + id, id % 1000 + 0.99));
+    }
+
+    private static Connection freshDatabase(String name) throws Exception{
+        Connection conn = DriverManager.getConnection("jdbc:h2:mem:" + name, "sa", "");
+        Main.createSchema(conn);
+        return conn;
+    }
+}
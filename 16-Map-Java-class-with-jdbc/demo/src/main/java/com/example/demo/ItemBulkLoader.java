@@ -0,0 +1,148 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Loads any number of items into the ITEM table without the per-row cost of insertItems.
+//
+// insertItems prepares, executes and closes a statement for every row, and in
+// auto-commit mode every row is also its own transaction. Here:
+//   - one prepared statement is reused for all rows
+//   - each statement can carry rowsPerStatement rows: values (?, ?, ?), (?, ?, ?), ...
+//   - statements are sent in JDBC batches of batchSize (addBatch / executeBatch)
+//   - the work is committed every commitEvery rows instead of every row
+// Items are pulled from the iterator one by one, so memory stays flat for any row count.
+//
+// If a chunk fails (SQL error or an exception from the item source) it is rolled
+// back and the exception is rethrown; chunks committed before it stay in the table.
+public class ItemBulkLoader {
+
+    private static final String INSERT = "insert into item(id, name, price) values ";
+    private static final String ROW = "(?, ?, ?)";
+
+    private final Connection conn;
+    private final int batchSize;
+    private final int rowsPerStatement;
+    private final int commitEvery;
+
+    // 1_000 statements per batch, one row per statement, commit every 100_000 rows
+    public ItemBulkLoader(Connection conn){
+        this(conn, 1_000, 1, 100_000);
+    }
+
+    public ItemBulkLoader(Connection conn, int batchSize, int rowsPerStatement, int commitEvery){
+        if(batchSize < 1 || rowsPerStatement < 1 || commitEvery < 1){
+            throw new IllegalArgumentException("batchSize, rowsPerStatement and commitEvery must be positive");
+        }
+        this.conn = conn;
+        this.batchSize = batchSize;
+        this.rowsPerStatement = rowsPerStatement;
+        this.commitEvery = commitEvery;
+    }
+
+    public Result load(Stream<Item> items) throws SQLException{
+        try(items){
+            return load(items.iterator());
+        }
+    }
+
+    public Result load(Iterator<Item> items) throws SQLException{
+        long started = System.nanoTime();
+        long committed = 0;
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        // multi-row statement for full groups, single-row one for the leftovers at the end
+        try(PreparedStatement multi = conn.prepareStatement(insertSql(rowsPerStatement));
+            PreparedStatement single = rowsPerStatement == 1 ? null : conn.prepareStatement(insertSql(1))){
+
+            Item[] group = new Item[rowsPerStatement];
+            int grouped = 0;
+            int batched = 0;
+            long uncommitted = 0;
+
+            while(items.hasNext()){
+                group[grouped++] = items.next();
+                if(grouped < rowsPerStatement){
+                    continue;
+                }
+                bind(multi, group, grouped);
+                multi.addBatch();
+                grouped = 0;
+                uncommitted += rowsPerStatement;
+
+                if(++batched == batchSize){
+                    multi.executeBatch();
+                    batched = 0;
+                }
+                if(uncommitted >= commitEvery){
+                    if(batched > 0){
+                        multi.executeBatch();
+                        batched = 0;
+                    }
+                    conn.commit();
+                    committed += uncommitted;
+                    uncommitted = 0;
+                }
+            }
+
+            // flush the tail
+            if(batched > 0){
+                multi.executeBatch();
+            }
+            for(int i = 0; i < grouped; i++){
+                bind(single, new Item[]{group[i]}, 1);
+                single.addBatch();
+            }
+            if(grouped > 0){
+                single.executeBatch();
+            }
+            conn.commit();
+            committed += uncommitted + grouped;
+        } catch(SQLException | RuntimeException e){
+            // also when the item source fails - restoring auto-commit would commit the partial chunk
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        return new Result(committed, System.nanoTime() - started);
+    }
+
+    private static void bind(PreparedStatement ps, Item[] group, int rows) throws SQLException{
+        int index = 1;
+        for(int i = 0; i < rows; i++){
+            Item item = group[i];
+            ps.setLong(index++, item.getId());
+            ps.setString(index++, item.getName());
+            ps.setDouble(index++, item.getPrice());
+        }
+    }
+
+    private static String insertSql(int rows){
+        StringBuilder sql = new StringBuilder(INSERT.length() + rows * (ROW.length() + 2));
+        sql.append(INSERT);
+        for(int i = 0; i < rows; i++){
+            if(i > 0){
+                sql.append(", ");
+            }
+            sql.append(ROW);
+        }
+        return sql.toString();
+    }
+
+    public record Result(long rows, long nanos){
+
+        public double rowsPerSecond(){
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%d rows in %.2f s (%.0f rows/sec)", rows, nanos / 1e9, rowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Read-optimized, column-oriented copy of the ITEM table for analytics.
+//
+// Instead of one Item object per row there is one primitive array per column:
+//   long[]   ids
+//   double[] prices
+//   int[]    names   - dictionary codes; every distinct name is stored once
+// A price scan then reads 8 bytes per row, sequentially, with no pointer chasing.
+//
+// The operators are plain counted loops over primitive arrays with no calls or
+// data-dependent branches inside, so C2 can unroll and vectorize them (SIMD).
+// Sums keep four independent accumulators: floating-point adds may not be
+// reordered by the JIT, and a single accumulator would serialize on its latency.
+//
+// Rows are only ever appended (see appendNewItems). Readers work on an immutable
+// snapshot of (arrays, size), so scans never lock and never see a half-added row.
+public class ItemColumnStore {
+
+    private static final int LANES = 4;
+
+    // guarded by "this" (writers only)
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    private volatile Columns columns = new Columns(new long[1024], new double[1024], new int[1024], 0);
+
+    // everything currently in the item table, in id order
+    public static ItemColumnStore load(Connection conn) throws SQLException{
+        ItemColumnStore store = new ItemColumnStore();
+        store.appendNewItems(conn);
+        return store;
+    }
+
+    // Pulls the rows added to the table since the last load/append (ids are
+    // assumed to grow, as with a sequence) and returns how many were added.
+    public synchronized int appendNewItems(Connection conn) throws SQLException{
+        String dql = "select id, name, price from item where id > ? order by id";
+
+        Columns c = columns;
+        long lastId = c.size == 0 ? Long.MIN_VALUE : c.ids[c.size - 1];
+        long[] ids = c.ids;
+        double[] prices = c.prices;
+        int[] names = c.names;
+        int size = c.size;
+
+        try(PreparedStatement ps = conn.prepareStatement(dql)){
+            ps.setLong(1, lastId);
+            ps.setFetchSize(10_000);
+            try(ResultSet rs = ps.executeQuery()){
+                while(rs.next()){
+                    if(size == ids.length){
+                        int capacity = ids.length * 2;
+                        ids = Arrays.copyOf(ids, capacity);
+                        prices = Arrays.copyOf(prices, capacity);
+                        names = Arrays.copyOf(names, capacity);
+                    }
+                    ids[size] = rs.getLong(1);
+                    names[size] = encode(rs.getString(2));
+                    prices[size] = rs.getDouble(3);
+                    size++;
+                }
+            }
+        }
+        // publish once for the whole batch
+        columns = new Columns(ids, prices, names, size);
+        return size - c.size;
+    }
+
+    // for items that are known without a query (e.g. right after inserting them)
+    public synchronized void append(Item item){
+        Columns c = columns;
+        if(c.size > 0 && item.getId() <= c.ids[c.size - 1]){
+            throw new IllegalArgumentException("ids must grow: " + item.getId() + " after " + c.ids[c.size - 1]);
+        }
+        long[] ids = c.ids;
+        double[] prices = c.prices;
+        int[] names = c.names;
+        if(c.size == ids.length){
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        ids[c.size] = item.getId();
+        prices[c.size] = item.getPrice();
+        names[c.size] = encode(item.getName());
+        columns = new Columns(ids, prices, names, c.size + 1);
+    }
+
+    public int size(){
+        return columns.size;
+    }
+
+    public synchronized int distinctNames(){
+        return dictionary.size();
+    }
+
+    public double sumPrice(){
+        Columns c = columns;
+        double[] prices = c.prices;
+        int n = c.size;
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for(; i + LANES <= n; i += LANES){
+            s0 += prices[i];
+            s1 += prices[i + 1];
+            s2 += prices[i + 2];
+            s3 += prices[i + 3];
+        }
+        for(; i < n; i++){
+            s0 += prices[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    // NaN for an empty store
+    public double averagePrice(){
+        Columns c = columns;
+        return c.size == 0 ? Double.NaN : sumPrice() / c.size;
+    }
+
+    public double minPrice(){
+        Columns c = columns;
+        double[] prices = c.prices;
+        double min = Double.POSITIVE_INFINITY;
+        for(int i = 0; i < c.size; i++){
+            min = Math.min(min, prices[i]);
+        }
+        return min;
+    }
+
+    public double maxPrice(){
+        Columns c = columns;
+        double[] prices = c.prices;
+        double max = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < c.size; i++){
+            max = Math.max(max, prices[i]);
+        }
+        return max;
+    }
+
+    // rows with low <= price <= high
+    public int countPriceBetween(double low, double high){
+        Columns c = columns;
+        double[] prices = c.prices;
+        int count = 0;
+        for(int i = 0; i < c.size; i++){
+            double p = prices[i];
+            // & instead of && - no branch, just a compare-and-add
+            count += (p >= low & p <= high) ? 1 : 0;
+        }
+        return count;
+    }
+
+    public double sumPriceBetween(double low, double high){
+        Columns c = columns;
+        double[] prices = c.prices;
+        int n = c.size;
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for(; i + LANES <= n; i += LANES){
+            s0 += within(prices[i], low, high);
+            s1 += within(prices[i + 1], low, high);
+            s2 += within(prices[i + 2], low, high);
+            s3 += within(prices[i + 3], low, high);
+        }
+        for(; i < n; i++){
+            s0 += within(prices[i], low, high);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    // ids of the rows with low <= price <= high, in id order
+    public long[] idsWithPriceBetween(double low, double high){
+        Columns c = columns;
+        double[] prices = c.prices;
+        long[] ids = c.ids;
+        long[] out = new long[16];
+        int found = 0;
+        for(int i = 0; i < c.size; i++){
+            double p = prices[i];
+            if(p >= low & p <= high){
+                if(found == out.length){
+                    out = Arrays.copyOf(out, found * 2);
+                }
+                out[found++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(out, found);
+    }
+
+    // the name is compared once against the dictionary, the scan compares ints
+    public int countByName(String name){
+        Integer code;
+        synchronized(this){
+            code = codes.get(name);
+        }
+        if(code == null){
+            return 0;
+        }
+        Columns c = columns;
+        int[] names = c.names;
+        int target = code;
+        int count = 0;
+        for(int i = 0; i < c.size; i++){
+            count += names[i] == target ? 1 : 0;
+        }
+        return count;
+    }
+
+    // materializes one row - for results, not for scans
+    public Item get(int row){
+        Columns c = columns;
+        if(row < 0 || row >= c.size){
+            throw new IndexOutOfBoundsException("row " + row + " of " + c.size);
+        }
+        String name;
+        synchronized(this){
+            name = dictionary.get(c.names[row]);
+        }
+        return new Item(c.ids[row], name, c.prices[row]);
+    }
+
+    private static double within(double price, double low, double high){
+        return (price >= low & price <= high) ? price : 0.0;
+    }
+
+    // must hold the monitor
+    private int encode(String name){
+        Integer code = codes.get(name);
+        if(code == null){
+            code = dictionary.size();
+            dictionary.add(name);
+            codes.put(name, code);
+        }
+        return code;
+    }
+
+    // one consistent view: rows [0, size) of these arrays never change again
+    private record Columns(long[] ids, double[] prices, int[] names, int size) { }
+}
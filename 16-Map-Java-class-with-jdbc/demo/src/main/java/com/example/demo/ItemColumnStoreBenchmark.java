@@ -0,0 +1,121 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.stream.LongStream;
+
+// Price analytics three ways:
+//   SQL          - sum/avg/count with a where clause, run by H2
+//   Item objects - the findAllItems list, aggregated in Java
+//   column store - ItemColumnStore's array scans
+// Then the column store alone on a much bigger, generated table to show its
+// scan speed in GB/s.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.demo.ItemColumnStoreBenchmark"
+//      optional args: <table rows> <generated rows>   (e.g. 1000000 20000000 with -Xmx2g)
+public class ItemColumnStoreBenchmark {
+
+    private static final double LOW = 100.0;
+    private static final double HIGH = 200.0;
+
+    public static void main(String[] args) throws Exception{
+        long tableRows = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long generatedRows = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000;
+
+        System.out.println("=== ITEM PRICE ANALYTICS ===");
+        try(Connection conn = DriverManager.getConnection("jdbc:h2:mem:columns", "sa", "")){
+            Main.createSchema(conn);
+            new ItemBulkLoader(conn, 100, 100, 100_000).load(
+                LongStream.rangeClosed(1, tableRows).mapToObj(ItemColumnStoreBenchmark::item));
+
+            long started = System.nanoTime();
+            ItemColumnStore store = ItemColumnStore.load(conn);
+            System.out.printf("loaded %d rows (%d distinct names) in %.0f ms%n",
+                store.size(), store.distinctNames(), (System.nanoTime() - started) / 1e6);
+
+            for(int round = 0; round < 5; round++){
+                boolean last = round == 4;
+                // a new range every round - H2 would otherwise hand back its cached result
+                double low = LOW + round;
+                double high = HIGH + round;
+
+                started = System.nanoTime();
+                double sqlSum;
+                long sqlCount;
+                try(PreparedStatement ps = conn.prepareStatement(
+                        "select sum(price), count(*) from item where price between ? and ?")){
+                    ps.setDouble(1, low);
+                    ps.setDouble(2, high);
+                    try(ResultSet rs = ps.executeQuery()){
+                        rs.next();
+                        sqlSum = rs.getDouble(1);
+                        sqlCount = rs.getLong(2);
+                    }
+                }
+                long sqlNanos = System.nanoTime() - started;
+
+                started = System.nanoTime();
+                double objectSum = 0;
+                long objectCount = 0;
+                for(Item item : Main.findAllItems(conn)){
+                    if(item.getPrice() >= low && item.getPrice() <= high){
+                        objectSum += item.getPrice();
+                        objectCount++;
+                    }
+                }
+                long objectNanos = System.nanoTime() - started;
+
+                started = System.nanoTime();
+                double columnSum = store.sumPriceBetween(low, high);
+                long columnCount = store.countPriceBetween(low, high);
+                long columnNanos = System.nanoTime() - started;
+
+                if(columnCount != sqlCount || objectCount != sqlCount || Math.abs(columnSum - sqlSum) > 1e-6 * sqlSum){
+                    throw new IllegalStateException("results differ: sql " + sqlSum + "/" + sqlCount
+                        + ", objects " + objectSum + "/" + objectCount + ", columns " + columnSum + "/" + columnCount);
+                }
+                if(last){
+                    System.out.printf("sum+count where price between %.0f and %.0f (%d rows match):%n", low, high, sqlCount);
+                    System.out.printf("  SQL          : %8.2f ms%n", sqlNanos / 1e6);
+                    System.out.printf("  Item objects : %8.2f ms%n", objectNanos / 1e6);
+                    System.out.printf("  column store : %8.2f ms%n", columnNanos / 1e6);
+                }
+            }
+
+            // new rows in the table show up with one incremental append
+            try(Connection other = DriverManager.getConnection("jdbc:h2:mem:columns", "sa", "")){
+                Main.insertItems(other, tableRows + 1, "Late Item", 150.0);
+            }
+            System.out.println("appended after insert: " + store.appendNewItems(conn) + " row(s), size now " + store.size());
+        }
+
+        System.out.println("generating " + generatedRows + " rows straight into a column store...");
+        ItemColumnStore big = new ItemColumnStore();
+        for(long id = 1; id <= generatedRows; id++){
+            big.append(item(id));
+        }
+        for(int round = 0; round < 10; round++){
+            long started = System.nanoTime();
+            double sum = big.sumPrice();
+            long sumNanos = System.nanoTime() - started;
+
+            started = System.nanoTime();
+            int count = big.countPriceBetween(LOW, HIGH);
+            long countNanos = System.nanoTime() - started;
+
+            if(round == 9){
+                double gigabytes = generatedRows * 8 / 1e9;
+                System.out.printf("sumPrice          : %7.2f ms (%.1f GB/s), avg %.2f%n",
+                    sumNanos / 1e6, gigabytes / (sumNanos / 1e9), sum / generatedRows);
+                System.out.printf("countPriceBetween : %7.2f ms (%.1f GB/s), %d rows%n",
+                    countNanos / 1e6, gigabytes / (countNanos / 1e9), count);
+            }
+        }
+    }
+
+    private static Item item(long id){
+        return new Item(id, "Item " + (id % 10_000), id % 1000 + 0.99);
+    }
+}
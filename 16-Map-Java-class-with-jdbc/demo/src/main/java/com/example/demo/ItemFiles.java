@@ -0,0 +1,546 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Bulk import/export of the ITEM table as CSV or as a compact binary format.
+//
+// Export: one forward-only scan; every row is encoded straight from the ResultSet
+// into a direct buffer that is written to the FileChannel in 1 MB pieces - no Item
+// objects, no per-row String for numbers.
+//
+// CSV import: the file is memory-mapped and cut into chunks at line boundaries;
+// parser threads read numbers directly from the mapped bytes and only create a
+// String for the name (the JDBC driver needs one anyway). Parsed rows go in
+// batches through a bounded queue into one ItemBulkLoader, so parsing runs in
+// parallel with the inserts and memory stays bounded.
+//
+// CSV:    id,name,price  header line, then one item per line; names containing
+//         a comma or quote are quoted ("" inside quotes), names must not contain
+//         line breaks. A null name is an empty field, an empty name is written "".
+// binary: "ITM1", then per row: long id | double price | int nameLength (-1 = null) | UTF-8 name
+//         (little endian)
+public class ItemFiles {
+
+    private static final String DQL = "select id, name, price from item order by id";
+    private static final byte[] CSV_HEADER = "id,name,price\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int BINARY_MAGIC = 0x314d5449; // "ITM1" little endian
+    private static final int WRITE_BUFFER = 1 << 20;
+    private static final int BATCH = 10_000;
+    // a mapping must stay below 2 GB
+    private static final long MAX_CHUNK = 256L << 20;
+
+    private ItemFiles(){
+    }
+
+    public static long exportCsv(Connection conn, Path file) throws SQLException, IOException{
+        try(FileChannel out = create(file); PreparedStatement ps = conn.prepareStatement(DQL)){
+            ps.setFetchSize(10_000);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER);
+            buffer.put(CSV_HEADER);
+            long rows = 0;
+            try(ResultSet rs = ps.executeQuery()){
+                while(rs.next()){
+                    String name = rs.getString(2);
+                    // worst case: every char quoted and 3 bytes long, plus two numbers
+                    int needed = 64 + (name == null ? 0 : name.length() * 6 + 2);
+                    if(buffer.remaining() < needed){
+                        flush(out, buffer);
+                        if(buffer.remaining() < needed){
+                            buffer = ByteBuffer.allocateDirect(needed);
+                        }
+                    }
+                    putLong(buffer, rs.getLong(1));
+                    buffer.put((byte) ',');
+                    putCsvName(buffer, name);
+                    buffer.put((byte) ',');
+                    putAscii(buffer, Double.toString(rs.getDouble(3)));
+                    buffer.put((byte) '\n');
+                    rows++;
+                }
+            }
+            flush(out, buffer);
+            return rows;
+        }
+    }
+
+    public static long exportBinary(Connection conn, Path file) throws SQLException, IOException{
+        try(FileChannel out = create(file); PreparedStatement ps = conn.prepareStatement(DQL)){
+            ps.setFetchSize(10_000);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(BINARY_MAGIC);
+            long rows = 0;
+            try(ResultSet rs = ps.executeQuery()){
+                while(rs.next()){
+                    String name = rs.getString(2);
+                    byte[] nameBytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+                    int needed = 20 + (nameBytes == null ? 0 : nameBytes.length);
+                    if(buffer.remaining() < needed){
+                        flush(out, buffer);
+                        if(buffer.remaining() < needed){
+                            buffer = ByteBuffer.allocateDirect(needed).order(ByteOrder.LITTLE_ENDIAN);
+                        }
+                    }
+                    buffer.putLong(rs.getLong(1));
+                    buffer.putDouble(rs.getDouble(3));
+                    if(nameBytes == null){
+                        buffer.putInt(-1);
+                    } else {
+                        buffer.putInt(nameBytes.length);
+                        buffer.put(nameBytes);
+                    }
+                    rows++;
+                }
+            }
+            flush(out, buffer);
+            return rows;
+        }
+    }
+
+    public static ItemBulkLoader.Result importCsv(Connection conn, Path file, int parserThreads) throws SQLException, IOException{
+        try(FileChannel in = FileChannel.open(file, StandardOpenOption.READ)){
+            List<long[]> chunks = csvChunks(in, parserThreads);
+            BlockingQueue<Item[]> batches = new ArrayBlockingQueue<>(parserThreads * 4);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            // set when the loader gives up, so the parsers stop instead of waiting for room forever
+            AtomicBoolean cancelled = new AtomicBoolean();
+
+            for(int t = 0; t < parserThreads; t++){
+                List<long[]> mine = new ArrayList<>();
+                for(int c = t; c < chunks.size(); c += parserThreads){
+                    mine.add(chunks.get(c));
+                }
+                Thread parser = new Thread(() -> {
+                    try{
+                        for(long[] chunk : mine){
+                            if(cancelled.get()){
+                                break;
+                            }
+                            parseCsvChunk(in, chunk[0], chunk[1], batches, cancelled);
+                        }
+                    } catch(Throwable e){
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        putUninterruptibly(batches, END);
+                    }
+                }, "csv-parser-" + t);
+                parser.setDaemon(true);
+                parser.start();
+            }
+
+            BatchIterator items = new BatchIterator(batches, parserThreads, failure);
+            try{
+                return new ItemBulkLoader(conn, 100, 100, 100_000).load(items);
+            } catch(SQLException | RuntimeException | Error e){
+                cancelled.set(true);
+                items.drain();
+                throw e;
+            }
+        }
+    }
+
+    public static ItemBulkLoader.Result importBinary(Connection conn, Path file) throws SQLException, IOException{
+        try(FileChannel in = FileChannel.open(file, StandardOpenOption.READ)){
+            long size = in.size();
+            ByteBuffer header = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            in.read(header, 0);
+            if(size < 4 || header.getInt(0) != BINARY_MAGIC){
+                throw new IllegalArgumentException("Not an item binary file: " + file);
+            }
+            Iterator<Item> rows = new Iterator<>(){
+                long position = 4;
+                MappedByteBuffer window;
+                long windowStart;
+
+                @Override
+                public boolean hasNext(){
+                    return position < size;
+                }
+
+                @Override
+                public Item next(){
+                    if(!hasNext()){
+                        throw new NoSuchElementException();
+                    }
+                    // the fixed part is 20 bytes; remap when the row might not fit the window
+                    ByteBuffer b = window(20);
+                    long id = b.getLong();
+                    double price = b.getDouble();
+                    int length = b.getInt();
+                    position += 20;
+                    String name = null;
+                    if(length >= 0){
+                        b = window(length);
+                        name = decodeUtf8(b, b.position(), length);
+                        position += length;
+                    }
+                    return new Item(id, name, price);
+                }
+
+                private ByteBuffer window(int bytes){
+                    if(window == null || position + bytes > windowStart + window.capacity()){
+                        try{
+                            windowStart = position;
+                            window = in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_CHUNK, size - position));
+                            window.order(ByteOrder.LITTLE_ENDIAN);
+                        } catch(IOException e){
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    window.position((int) (position - windowStart));
+                    return window;
+                }
+            };
+            return new ItemBulkLoader(conn, 100, 100, 100_000).load(rows);
+        }
+    }
+
+    // [start, end) byte ranges that begin at a line start, at most MAX_CHUNK long
+    private static List<long[]> csvChunks(FileChannel in, int parserThreads) throws IOException{
+        long size = in.size();
+        long start = skipLine(in, 0, size); // header
+        long target = Math.max(1 << 20, Math.min(MAX_CHUNK, (size - start) / (parserThreads * 4L) + 1));
+        List<long[]> chunks = new ArrayList<>();
+        while(start < size){
+            long end = Math.min(size, start + target);
+            if(end < size){
+                end = skipLine(in, end, size);
+            }
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    // position just after the next '\n' at or after `from`
+    private static long skipLine(FileChannel in, long from, long size) throws IOException{
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long position = from;
+        while(position < size){
+            probe.clear();
+            int read = in.read(probe, position);
+            if(read <= 0){
+                break;
+            }
+            for(int i = 0; i < read; i++){
+                if(probe.get(i) == '\n'){
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static void parseCsvChunk(FileChannel in, long start, long end, BlockingQueue<Item[]> batches,
+            AtomicBoolean cancelled) throws IOException{
+        MappedByteBuffer b = in.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int limit = b.limit();
+        int at = 0;
+        Item[] batch = new Item[BATCH];
+        int filled = 0;
+        byte[] scratch = new byte[256];
+
+        while(at < limit){
+            int lineStart = at;
+            // id
+            long id = 0;
+            boolean negative = b.get(at) == '-';
+            if(negative){
+                at++;
+            }
+            while(b.get(at) != ','){
+                id = id * 10 + (b.get(at++) - '0');
+            }
+            if(negative){
+                id = -id;
+            }
+            at++;
+
+            // name, possibly quoted
+            String name;
+            if(b.get(at) == '"'){
+                at++;
+                int length = 0;
+                while(true){
+                    byte c = b.get(at++);
+                    if(c == '"'){
+                        if(at < limit && b.get(at) == '"'){
+                            at++;
+                        } else {
+                            break;
+                        }
+                    }
+                    if(length == scratch.length){
+                        scratch = Arrays.copyOf(scratch, length * 2);
+                    }
+                    scratch[length++] = c;
+                }
+                name = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            } else {
+                int nameStart = at;
+                while(b.get(at) != ','){
+                    at++;
+                }
+                // an empty field is a null name; an empty name comes quoted
+                name = at == nameStart ? null : decodeUtf8(b, nameStart, at - nameStart);
+            }
+            at++;
+
+            // price
+            int priceStart = at;
+            while(at < limit && b.get(at) != '\n' && b.get(at) != '\r'){
+                at++;
+            }
+            double price = parseDouble(b, priceStart, at);
+            while(at < limit && (b.get(at) == '\n' || b.get(at) == '\r')){
+                at++;
+            }
+            if(at == lineStart){
+                throw new IllegalStateException("Malformed CSV line at byte " + (start + lineStart));
+            }
+
+            batch[filled++] = new Item(id, name, price);
+            if(filled == BATCH){
+                if(cancelled.get()){
+                    return;
+                }
+                putUninterruptibly(batches, batch);
+                batch = new Item[BATCH];
+                filled = 0;
+            }
+        }
+        if(filled > 0){
+            putUninterruptibly(batches, Arrays.copyOf(batch, filled));
+        }
+    }
+
+    // plain decimals ("12", "-0.5", "420.0") straight from the bytes; anything else via Double.parseDouble
+    private static double parseDouble(ByteBuffer b, int from, int to){
+        int at = from;
+        boolean negative = at < to && b.get(at) == '-';
+        if(negative){
+            at++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for(; at < to; at++){
+            byte c = b.get(at);
+            if(c >= '0' && c <= '9'){
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if(scale >= 0){
+                    scale++;
+                }
+            } else if(c == '.' && scale < 0){
+                scale = 0;
+            } else {
+                digits = 99; // exponent or garbage
+                break;
+            }
+        }
+        if(digits == 0 || digits > 15 || scale > 22){
+            return Double.parseDouble(decodeUtf8(b, from, to - from));
+        }
+        // both exact as doubles, so one correctly rounded division
+        double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for(int i = 1; i < POWERS_OF_TEN.length; i++){
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private static String decodeUtf8(ByteBuffer b, int from, int length){
+        byte[] bytes = new byte[length];
+        b.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // UTF-8 by code point: a surrogate pair is one 4-byte sequence
+    private static void putCsvName(ByteBuffer buffer, String name){
+        if(name == null){
+            return;
+        }
+        boolean quote = name.isEmpty() || name.indexOf(',') >= 0 || name.indexOf('"') >= 0;
+        if(quote){
+            buffer.put((byte) '"');
+        }
+        for(int i = 0; i < name.length(); ){
+            int c = name.codePointAt(i);
+            i += Character.charCount(c);
+            if(c == '"'){
+                buffer.put((byte) '"');
+            }
+            if(c < 0x80){
+                buffer.put((byte) c);
+            } else if(c < 0x800){
+                buffer.put((byte) (0xc0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else if(c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE){
+                // a lone surrogate has no UTF-8 form; replaced like String.getBytes does
+                buffer.put((byte) '?');
+            } else if(c < 0x10000){
+                buffer.put((byte) (0xe0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else {
+                buffer.put((byte) (0xf0 | (c >> 18)));
+                buffer.put((byte) (0x80 | ((c >> 12) & 0x3f)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+        if(quote){
+            buffer.put((byte) '"');
+        }
+    }
+
+    private static void putAscii(ByteBuffer buffer, String s){
+        for(int i = 0; i < s.length(); i++){
+            buffer.put((byte) s.charAt(i));
+        }
+    }
+
+    private static void putLong(ByteBuffer buffer, long value){
+        if(value < 0){
+            if(value == Long.MIN_VALUE){
+                putAscii(buffer, Long.toString(value));
+                return;
+            }
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int digits = 1;
+        for(long p = 10; p <= value && digits < 19; p *= 10){
+            digits++;
+        }
+        int end = buffer.position() + digits;
+        for(int at = end - 1; at >= buffer.position(); at--){
+            buffer.put(at, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    private static FileChannel create(Path file) throws IOException{
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    private static void flush(FileChannel out, ByteBuffer buffer) throws IOException{
+        buffer.flip();
+        while(buffer.hasRemaining()){
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static final Item[] END = new Item[0];
+
+    private static void putUninterruptibly(BlockingQueue<Item[]> queue, Item[] batch){
+        boolean interrupted = false;
+        while(true){
+            try{
+                queue.put(batch);
+                break;
+            } catch(InterruptedException e){
+                interrupted = true;
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Items of all parsed batches, until every parser has sent END.
+    private static final class BatchIterator implements Iterator<Item> {
+        private final BlockingQueue<Item[]> batches;
+        private final AtomicReference<Throwable> failure;
+        private int running;
+        private Item[] current = END;
+        private int index;
+
+        BatchIterator(BlockingQueue<Item[]> batches, int parsers, AtomicReference<Throwable> failure){
+            this.batches = batches;
+            this.running = parsers;
+            this.failure = failure;
+        }
+
+        @Override
+        public boolean hasNext(){
+            while(index == current.length){
+                if(failure.get() != null){
+                    // makes the loader roll back the chunk it is working on
+                    throw new IllegalStateException("CSV parser failed", failure.get());
+                }
+                if(running == 0){
+                    return false;
+                }
+                try{
+                    current = batches.take();
+                } catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for parsed items", e);
+                }
+                index = 0;
+                if(current == END){
+                    running--;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Item next(){
+            if(!hasNext()){
+                throw new NoSuchElementException();
+            }
+            return current[index++];
+        }
+
+        // after a failed load: takes whatever is queued until every parser has sent END,
+        // so none of them stays blocked on a full queue holding its mapped chunk
+        void drain(){
+            current = END;
+            index = 0;
+            boolean interrupted = false;
+            while(running > 0){
+                try{
+                    if(batches.take() == END){
+                        running--;
+                    }
+                } catch(InterruptedException e){
+                    interrupted = true;
+                }
+            }
+            if(interrupted){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
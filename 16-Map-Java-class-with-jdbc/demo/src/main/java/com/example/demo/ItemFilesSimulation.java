@@ -0,0 +1,148 @@
+package com.example.demo;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+// Round trip of the ITEM table through CSV and the binary format.
+//
+// A table is bulk-loaded, exported both ways, and each file is imported into a
+// fresh database. Row count, id sum and price sum must survive the trip, and so
+// must names that need quoting, accented and non-BMP names, null and empty names.
+// MB/s plus rows/sec are printed for every step.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.demo.ItemFilesSimulation"
+//      optional args: <rows> <parser threads>
+public class ItemFilesSimulation {
+
+    // escaped, so the source compiles the same under any platform encoding
+    private static final String ACCENTED = "Cr\u00e8me br\u00fbl\u00e9e pan ";
+    // U+1F32E, a surrogate pair in a String and 4 bytes in UTF-8
+    private static final String TACO = "Taco \uD83C\uDF2E ";
+    // every kind of name must occur, so the smallest table that checks them all
+    private static final long ALL_KINDS = 109;
+
+    public static void main(String[] args) throws Exception{
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int parsers = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        System.out.println("=== ITEM IMPORT / EXPORT: " + rows + " rows, " + parsers + " parser threads ===");
+        Path csv = Files.createTempFile("items", ".csv");
+        Path binary = Files.createTempFile("items", ".bin");
+        try{
+            String expected;
+            String kinds;
+            try(Connection conn = DriverManager.getConnection("jdbc:h2:mem:source", "sa", "")){
+                Main.createSchema(conn);
+                // a few names that need quoting, are not ASCII, or are null or empty
+                new ItemBulkLoader(conn).load(LongStream.rangeClosed(1, rows).mapToObj(id -> new Item(id,
+                    name(id), id % 1000 + 0.99)));
+                expected = checksum(conn);
+                kinds = kinds(conn);
+
+                long started = System.nanoTime();
+                ItemFiles.exportCsv(conn, csv);
+                report("export csv   ", rows, Files.size(csv), started);
+
+                started = System.nanoTime();
+                ItemFiles.exportBinary(conn, binary);
+                report("export binary", rows, Files.size(binary), started);
+            }
+
+            String fromCsv;
+            try(Connection conn = DriverManager.getConnection("jdbc:h2:mem:fromcsv", "sa", "")){
+                Main.createSchema(conn);
+                long started = System.nanoTime();
+                ItemFiles.importCsv(conn, csv, parsers);
+                report("import csv   ", rows, Files.size(csv), started);
+                fromCsv = checksum(conn);
+            }
+
+            String fromBinary;
+            try(Connection conn = DriverManager.getConnection("jdbc:h2:mem:frombinary", "sa", "")){
+                Main.createSchema(conn);
+                long started = System.nanoTime();
+                ItemFiles.importBinary(conn, binary);
+                report("import binary", rows, Files.size(binary), started);
+                fromBinary = checksum(conn);
+            }
+
+            System.out.println("source: " + expected);
+            // with fewer rows some kind of name is not there to carry through
+            boolean passed = expected.equals(fromCsv) && expected.equals(fromBinary) && (kinds == null || rows < ALL_KINDS);
+            if(!passed){
+                System.out.println("missing in source: " + kinds);
+                System.out.println("csv:    " + fromCsv);
+                System.out.println("binary: " + fromBinary);
+            }
+            System.out.println(passed ? "TEST PASSED: round trip is lossless" : "TEST FAILED");
+            if(!passed){
+                System.exit(1);
+            }
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(binary);
+        }
+    }
+
+    private static String checksum(Connection conn) throws Exception{
+        try(Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery("select count(*), sum(id), sum(price), sum(length(name)), "
+                + "count(case when name like '%\"%' then 1 end), count(case when name like '" + ACCENTED + "%' then 1 end), "
+                + "count(case when name like '" + TACO + "%' then 1 end), "
+                + "count(case when name is null then 1 end), count(case when name = '' then 1 end) from item")){
+            rs.next();
+            return "rows=" + rs.getLong(1) + " ids=" + rs.getLong(2) + " prices=" + rs.getBigDecimal(3)
+                + " nameChars=" + rs.getLong(4) + " quoted=" + rs.getLong(5) + " accented=" + rs.getLong(6)
+                + " nonBmp=" + rs.getLong(7) + " null=" + rs.getLong(8) + " empty=" + rs.getLong(9);
+        }
+    }
+
+    private static String name(long id){
+        if(id % 100 == 0){
+            return "Lamp, \"Deluxe\" " + id;
+        }
+        if(id % 101 == 0){
+            return ACCENTED + id;
+        }
+        if(id % 103 == 0){
+            return TACO + id;
+        }
+        if(id % 107 == 0){
+            return null;
+        }
+        if(id % 109 == 0){
+            return "";
+        }
+        return "Item " + id;
+    }
+
+    // the kinds of name with no row in the table, or null if every kind is there
+    private static String kinds(Connection conn) throws Exception{
+        try(Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery("select count(case when name like '" + ACCENTED + "%' then 1 end), "
+                + "count(case when name like '" + TACO + "%' then 1 end), "
+                + "count(case when name is null then 1 end), count(case when name = '' then 1 end) from item")){
+            rs.next();
+            String[] labels = {"accented", "non-BMP", "null", "empty"};
+            List<String> missing = new ArrayList<>();
+            for(int i = 0; i < labels.length; i++){
+                if(rs.getLong(i + 1) == 0){
+                    missing.add(labels[i]);
+                }
+            }
+            return missing.isEmpty() ? null : String.join(", ", missing);
+        }
+    }
+
+    private static void report(String label, long rows, long bytes, long started){
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%s: %.2f s, %6.1f MB/s, %9.0f rows/sec%n", label, seconds, bytes / 1e6 / seconds, rows / seconds);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Full scans of the item table on several connections at once.
+//
+//   try(ItemParallelScan scan = new ItemParallelScan(pool, 8)){
+//       List<ItemParallelScan.Range> ranges = scan.splitByMinMax(32);
+//       double total = scan.collect(ranges, () -> new double[1],
+//           (sum, item) -> sum[0] += item.getPrice(), (a, b) -> a[0] += b[0])[0];
+//   }
+//
+// The id keyspace is cut into ranges, each range is one
+//   select id, name, price from item where id between ? and ? order by id
+// on its own pooled connection (a primary key range scan, already sorted), and
+// the ranges are spread over a ForkJoinPool. Use a few times more ranges than
+// threads so a slow range does not leave the other threads idle at the end.
+//
+// Two ways to cut:
+//   splitByMinMax  - equal-width ranges between min(id) and max(id); two index
+//                    lookups, right for dense ids (a sequence)
+//   splitBySample  - boundaries at quantiles of a random sample of ids; even row
+//                    counts when ids are sparse or clustered, at the cost of one
+//                    pass over the primary key
+//
+// The ConnectionPool needs at least as many connections as there are threads.
+public class ItemParallelScan implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final ForkJoinPool workers;
+    private final int fetchSize;
+
+    public ItemParallelScan(ConnectionPool pool, int threads){
+        this(pool, threads, 1_000);
+    }
+
+    public ItemParallelScan(ConnectionPool pool, int threads, int fetchSize){
+        if(threads < 1){
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.pool = pool;
+        this.workers = new ForkJoinPool(threads);
+        this.fetchSize = fetchSize;
+    }
+
+    public List<Range> splitByMinMax(int partitions) throws SQLException{
+        if(partitions < 1){
+            throw new IllegalArgumentException("partitions must be positive: " + partitions);
+        }
+        long[] bounds = minMax();
+        if(bounds == null){
+            return List.of();
+        }
+        long min = bounds[0];
+        long max = bounds[1];
+        // unsigned: max - min does not fit a long when ids span the whole range
+        long step = Long.divideUnsigned(max - min, partitions) + 1;
+        List<Range> ranges = new ArrayList<>(partitions);
+        long low = min;
+        while(true){
+            long high = Long.compareUnsigned(max - low, step) < 0 ? max : low + step - 1;
+            ranges.add(new Range(low, high));
+            if(high == max){
+                return ranges;
+            }
+            low = high + 1;
+        }
+    }
+
+    public List<Range> splitBySample(int partitions, int sampleSize) throws SQLException{
+        if(partitions < 1 || sampleSize < 1){
+            throw new IllegalArgumentException("partitions and sampleSize must be positive");
+        }
+        long[] bounds = minMax();
+        if(bounds == null){
+            return List.of();
+        }
+        long[] sample;
+        try(Connection conn = pool.getConnection()){
+            long count;
+            try(PreparedStatement ps = conn.prepareStatement("select count(*) from item");
+                ResultSet rs = ps.executeQuery()){
+                rs.next();
+                count = rs.getLong(1);
+            }
+            try(PreparedStatement ps = conn.prepareStatement("select id from item where rand() < ?")){
+                ps.setDouble(1, Math.min(1.0, (double) sampleSize / Math.max(1, count)));
+                ps.setFetchSize(fetchSize);
+                try(ResultSet rs = ps.executeQuery()){
+                    sample = new long[Math.min(sampleSize, 1024)];
+                    int n = 0;
+                    while(rs.next()){
+                        if(n == sample.length){
+                            sample = Arrays.copyOf(sample, n * 2);
+                        }
+                        sample[n++] = rs.getLong(1);
+                    }
+                    sample = Arrays.copyOf(sample, n);
+                }
+            }
+        }
+        Arrays.sort(sample);
+
+        List<Range> ranges = new ArrayList<>(partitions);
+        long low = bounds[0];
+        for(int k = 1; k < partitions; k++){
+            int at = (int) ((long) k * sample.length / partitions);
+            if(at >= sample.length){
+                break;
+            }
+            long boundary = sample[at];
+            // duplicates and a boundary on min(id) would give empty ranges
+            if(boundary > low){
+                ranges.add(new Range(low, boundary - 1));
+                low = boundary;
+            }
+        }
+        ranges.add(new Range(low, bounds[1]));
+        return ranges;
+    }
+
+    // Rows of all the ranges in id order, as a parallel stream: every range that a
+    // worker picks up is read on its own connection. The terminal operation runs in
+    // the ForkJoinPool it is called from (the common pool from a plain thread);
+    // collect() runs it on this scan's threads.
+    public Stream<Item> stream(List<Range> ranges){
+        return StreamSupport.stream(new RangeSpliterator(List.copyOf(ranges), 0, ranges.size()), true);
+    }
+
+    // Stream.collect on this scan's threads: every worker accumulates into its own
+    // container, the containers are combined at the end
+    public <A> A collect(List<Range> ranges, Supplier<A> supplier, BiConsumer<A, ? super Item> accumulator,
+                         BiConsumer<A, A> combiner){
+        try{
+            return workers.submit(() -> stream(ranges).collect(supplier, accumulator, combiner)).get();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during parallel scan", e);
+        } catch(ExecutionException e){
+            if(e.getCause() instanceof RuntimeException cause){
+                throw cause;
+            }
+            throw new IllegalStateException("Parallel scan failed", e.getCause());
+        }
+    }
+
+    // one range on one connection, row by row; returns the number of rows
+    public long scanRange(Range range, Consumer<? super Item> action) throws SQLException{
+        String dql = "select id, name, price from item where id between ? and ? order by id";
+        long rows = 0;
+        try(Connection conn = pool.getConnection();
+            PreparedStatement ps = conn.prepareStatement(dql)){
+            ps.setLong(1, range.low);
+            ps.setLong(2, range.high);
+            ps.setFetchSize(fetchSize);
+            try(ResultSet rs = ps.executeQuery()){
+                while(rs.next()){
+                    action.accept(new Item(rs.getLong(1), rs.getString(2), rs.getDouble(3)));
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public void close(){
+        workers.shutdown();
+    }
+
+    // null for an empty table
+    private long[] minMax() throws SQLException{
+        try(Connection conn = pool.getConnection();
+            PreparedStatement ps = conn.prepareStatement("select min(id), max(id) from item");
+            ResultSet rs = ps.executeQuery()){
+            rs.next();
+            long min = rs.getLong(1);
+            return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+        }
+    }
+
+    // ids from low to high, both included
+    public record Range(long low, long high) { }
+
+    // Splits by halving the list of ranges; a leaf reads its ranges one at a time.
+    private final class RangeSpliterator implements Spliterator<Item> {
+        private final List<Range> ranges;
+        private int next;
+        private final int end;
+        // rows of the range tryAdvance is in the middle of
+        private Iterator<Item> current;
+
+        RangeSpliterator(List<Range> ranges, int next, int end){
+            this.ranges = ranges;
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Item> action){
+            while(current == null || !current.hasNext()){
+                if(next == end){
+                    return false;
+                }
+                List<Item> rows = new ArrayList<>();
+                read(ranges.get(next++), rows::add);
+                current = rows.iterator();
+            }
+            action.accept(current.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Item> action){
+            if(current != null){
+                current.forEachRemaining(action);
+                current = null;
+            }
+            // straight from the cursor, no buffering
+            while(next < end){
+                read(ranges.get(next++), action);
+            }
+        }
+
+        @Override
+        public Spliterator<Item> trySplit(){
+            if(current != null || end - next < 2){
+                return null;
+            }
+            int mid = (next + end) >>> 1;
+            Spliterator<Item> prefix = new RangeSpliterator(ranges, next, mid);
+            next = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize(){
+            // row counts are unknown; "a lot" keeps the stream splitting down to single ranges
+            return next == end && (current == null || !current.hasNext()) ? 0 : Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics(){
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+
+        private void read(Range range, Consumer<? super Item> action){
+            try{
+                scanRange(range, action);
+            } catch(SQLException e){
+                throw new IllegalStateException("Could not scan items " + range.low + ".." + range.high, e);
+            }
+        }
+    }
+}
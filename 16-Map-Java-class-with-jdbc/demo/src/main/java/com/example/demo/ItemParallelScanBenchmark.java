@@ -0,0 +1,96 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+// Full-table aggregation (row count and price sum) with 1, 2, 4 ... threads,
+// each thread reading its id ranges on its own connection, against
+// Main.forEachItem on a single connection.
+//
+// Every run must see the same count and sum. Scaling is bounded by the cores:
+// H2 in memory is CPU-bound, so expect near-linear gains up to the core count
+// and nothing beyond it.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.demo.ItemParallelScanBenchmark"
+//      optional args: <rows> <max threads>   (e.g. 5000000 16 with -Xmx2g)
+public class ItemParallelScanBenchmark {
+
+    private static final int RANGES_PER_THREAD = 4;
+
+    public static void main(String[] args) throws Exception{
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 2_000_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+            : Math.max(4, Runtime.getRuntime().availableProcessors());
+
+        System.out.println("=== PARALLEL ITEM SCAN: " + rows + " rows, "
+            + Runtime.getRuntime().availableProcessors() + " cores ===");
+        try(ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:scan;DB_CLOSE_DELAY=-1", "sa", "",
+                1, maxThreads, 16, Duration.ofSeconds(30), Duration.ofMinutes(10))){
+            try(Connection conn = pool.getConnection()){
+                Main.createSchema(conn);
+                new ItemBulkLoader(conn, 100, 100, 100_000).load(
+                    LongStream.rangeClosed(1, rows).mapToObj(id -> new Item(id, "Item " + id % 1000, id % 1000 + 0.5)));
+            }
+
+            double[] expected = new double[2];
+            long started = System.nanoTime();
+            for(int round = 0; round < 3; round++){
+                started = System.nanoTime();
+                expected = new double[2];
+                double[] totals = expected;
+                try(Connection conn = pool.getConnection()){
+                    Main.forEachItem(conn, 1_000, item -> {
+                        totals[0]++;
+                        totals[1] += item.getPrice();
+                    });
+                }
+            }
+            double baseline = (System.nanoTime() - started) / 1e6;
+            System.out.printf("single connection : %7.0f ms  (%.0f rows)%n", baseline, expected[0]);
+
+            boolean correct = true;
+            for(int threads = 1; threads <= maxThreads; threads *= 2){
+                try(ItemParallelScan scan = new ItemParallelScan(pool, threads)){
+                    List<ItemParallelScan.Range> ranges = scan.splitByMinMax(threads * RANGES_PER_THREAD);
+                    double[] totals = null;
+                    double millis = 0;
+                    // warm-up rounds, the last one is measured
+                    for(int round = 0; round < 3; round++){
+                        started = System.nanoTime();
+                        totals = scan.collect(ranges, () -> new double[2],
+                            (sum, item) -> {
+                                sum[0]++;
+                                sum[1] += item.getPrice();
+                            },
+                            (a, b) -> {
+                                a[0] += b[0];
+                                a[1] += b[1];
+                            });
+                        millis = (System.nanoTime() - started) / 1e6;
+                    }
+                    boolean same = totals[0] == expected[0] && Math.abs(totals[1] - expected[1]) < 1e-6 * expected[1];
+                    correct &= same;
+                    System.out.printf("%2d threads        : %7.0f ms  %4.2fx  %d ranges%s%n",
+                        threads, millis, baseline / millis, ranges.size(), same ? "" : "  WRONG TOTALS");
+                }
+            }
+
+            // sampled boundaries agree with min/max ones, and the stream keeps id order
+            try(ItemParallelScan scan = new ItemParallelScan(pool, 2)){
+                List<ItemParallelScan.Range> sampled = scan.splitBySample(8, 10_000);
+                long count = scan.collect(sampled, () -> new long[1], (n, item) -> n[0]++, (a, b) -> a[0] += b[0])[0];
+                List<Long> firstIds = scan.stream(sampled).limit(5).map(Item::getId).collect(Collectors.toList());
+                System.out.println("sampled ranges    : " + sampled.size() + ", " + count + " rows, first ids " + firstIds);
+                correct &= count == (long) expected[0] && firstIds.equals(List.of(1L, 2L, 3L, 4L, 5L));
+            }
+
+            System.out.println(correct ? "TEST PASSED: every scan saw the whole table" : "TEST FAILED");
+            if(!correct){
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+// In-memory secondary index on item.price: answers
+//   countBetween / idsBetween     - price between low and high
+//   cheapest(k) / mostExpensive(k)
+// in O(log n) (+ k for the rows returned), without a database round trip.
+//
+// The index is two sorted runs of (price, id) pairs in primitive arrays - no
+// object per row, 16 bytes per item:
+//   main   - everything loaded or merged so far
+//   delta  - items inserted since the last merge, about sqrt(n) of them at most
+// An insert copies the small delta run with the new pair in place; when it is
+// full it is merged into main in one linear pass. Queries binary-search both runs
+// and combine the answers. Ties on price are ordered by id.
+//
+// Like ItemColumnStore, writers publish a new immutable (main, delta) pair and
+// readers never lock. Only inserts are tracked: items whose price changes or that
+// are deleted need a reload.
+public class ItemPriceIndex {
+
+    // An insert copies the delta (O(d)), and every d inserts main is merged (O(n)):
+    // per insert d + n/d, which is smallest at d = sqrt(n)
+    private static final int MIN_DELTA = 256;
+
+    private volatile Runs runs = new Runs(Run.EMPTY, Run.EMPTY);
+
+    // the current table, sorted by H2
+    public static ItemPriceIndex load(Connection conn) throws SQLException{
+        String dql = "select price, id from item where price is not null order by price, id";
+
+        double[] prices = new double[1024];
+        long[] ids = new long[1024];
+        int size = 0;
+        try(PreparedStatement ps = conn.prepareStatement(dql)){
+            ps.setFetchSize(10_000);
+            try(ResultSet rs = ps.executeQuery()){
+                while(rs.next()){
+                    double price = rs.getDouble(1);
+                    if(Double.isNaN(price)){
+                        continue; // NaN has no place in a sorted order
+                    }
+                    if(size == prices.length){
+                        prices = Arrays.copyOf(prices, size * 2);
+                        ids = Arrays.copyOf(ids, size * 2);
+                    }
+                    prices[size] = price;
+                    ids[size] = rs.getLong(2);
+                    size++;
+                }
+            }
+        }
+        ItemPriceIndex index = new ItemPriceIndex();
+        index.runs = new Runs(new Run(Arrays.copyOf(prices, size), Arrays.copyOf(ids, size)), Run.EMPTY);
+        return index;
+    }
+
+    public void insert(Item item){
+        insert(item.getId(), item.getPrice());
+    }
+
+    public synchronized void insert(long id, double price){
+        if(Double.isNaN(price)){
+            throw new IllegalArgumentException("price is NaN for item " + id);
+        }
+        Runs r = runs;
+        Run delta = r.delta.with(price, id);
+        int maxDelta = Math.max(MIN_DELTA, (int) Math.sqrt(r.main.size()));
+        runs = delta.size() >= maxDelta ? new Runs(Run.merge(r.main, delta), Run.EMPTY) : new Runs(r.main, delta);
+    }
+
+    public int size(){
+        Runs r = runs;
+        return r.main.size() + r.delta.size();
+    }
+
+    // low <= price <= high
+    public int countBetween(double low, double high){
+        Runs r = runs;
+        return r.main.countBetween(low, high) + r.delta.countBetween(low, high);
+    }
+
+    // low <= price <= high, cheapest first
+    public long[] idsBetween(double low, double high){
+        Runs r = runs;
+        Run a = r.main;
+        Run b = r.delta;
+        int i = a.lowerBound(low);
+        int iEnd = a.upperBound(high);
+        int j = b.lowerBound(low);
+        int jEnd = b.upperBound(high);
+        long[] out = new long[Math.max(0, iEnd - i) + Math.max(0, jEnd - j)];
+        int n = 0;
+        while(i < iEnd && j < jEnd){
+            out[n++] = a.before(i, b, j) ? a.ids[i++] : b.ids[j++];
+        }
+        while(i < iEnd){
+            out[n++] = a.ids[i++];
+        }
+        while(j < jEnd){
+            out[n++] = b.ids[j++];
+        }
+        return out;
+    }
+
+    // the k cheapest ids, cheapest first
+    public long[] cheapest(int k){
+        Runs r = runs;
+        Run a = r.main;
+        Run b = r.delta;
+        long[] out = new long[Math.min(Math.max(0, k), a.size() + b.size())];
+        int i = 0;
+        int j = 0;
+        for(int n = 0; n < out.length; n++){
+            boolean fromA = j == b.size() || i < a.size() && a.before(i, b, j);
+            out[n] = fromA ? a.ids[i++] : b.ids[j++];
+        }
+        return out;
+    }
+
+    // the k most expensive ids, most expensive first
+    public long[] mostExpensive(int k){
+        Runs r = runs;
+        Run a = r.main;
+        Run b = r.delta;
+        long[] out = new long[Math.min(Math.max(0, k), a.size() + b.size())];
+        int i = a.size() - 1;
+        int j = b.size() - 1;
+        for(int n = 0; n < out.length; n++){
+            boolean fromA = j < 0 || i >= 0 && !a.before(i, b, j);
+            out[n] = fromA ? a.ids[i--] : b.ids[j--];
+        }
+        return out;
+    }
+
+    // one consistent view for readers
+    private record Runs(Run main, Run delta) { }
+
+    // (price, id) pairs sorted by price, then id; never modified once published
+    private record Run(double[] prices, long[] ids) {
+        static final Run EMPTY = new Run(new double[0], new long[0]);
+
+        int size(){
+            return prices.length;
+        }
+
+        // first position with price >= value
+        int lowerBound(double value){
+            int lo = 0;
+            int hi = prices.length;
+            while(lo < hi){
+                int mid = (lo + hi) >>> 1;
+                if(prices[mid] < value){
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // first position with price > value
+        int upperBound(double value){
+            int lo = 0;
+            int hi = prices.length;
+            while(lo < hi){
+                int mid = (lo + hi) >>> 1;
+                if(prices[mid] <= value){
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        int countBetween(double low, double high){
+            return Math.max(0, upperBound(high) - lowerBound(low));
+        }
+
+        // does pair i of this run sort before pair j of the other run
+        boolean before(int i, Run other, int j){
+            double p = prices[i];
+            double q = other.prices[j];
+            return p < q || p == q && ids[i] < other.ids[j];
+        }
+
+        // a copy with the pair inserted in order
+        Run with(double price, long id){
+            int lo = 0;
+            int hi = prices.length;
+            while(lo < hi){
+                int mid = (lo + hi) >>> 1;
+                if(prices[mid] < price || prices[mid] == price && ids[mid] < id){
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            double[] newPrices = new double[prices.length + 1];
+            long[] newIds = new long[ids.length + 1];
+            System.arraycopy(prices, 0, newPrices, 0, lo);
+            System.arraycopy(ids, 0, newIds, 0, lo);
+            newPrices[lo] = price;
+            newIds[lo] = id;
+            System.arraycopy(prices, lo, newPrices, lo + 1, prices.length - lo);
+            System.arraycopy(ids, lo, newIds, lo + 1, ids.length - lo);
+            return new Run(newPrices, newIds);
+        }
+
+        static Run merge(Run a, Run b){
+            int size = a.size() + b.size();
+            double[] prices = new double[size];
+            long[] ids = new long[size];
+            int i = 0;
+            int j = 0;
+            for(int n = 0; n < size; n++){
+                boolean fromA = j == b.size() || i < a.size() && a.before(i, b, j);
+                if(fromA){
+                    prices[n] = a.prices[i];
+                    ids[n] = a.ids[i++];
+                } else {
+                    prices[n] = b.prices[j];
+                    ids[n] = b.ids[j++];
+                }
+            }
+            return new Run(prices, ids);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+// ItemPriceIndex against the same questions asked of H2 with an index on price:
+//   range   - ids with price between low and high (~0.1% of the table)
+//   count   - count(*) of such a range
+//   top 10  - the cheapest and the most expensive items
+// Every answer is first checked against the SQL result. Then items are inserted
+// into both the table and the index, and the checks run again.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.demo.ItemPriceIndexBenchmark"
+//      optional args: <rows> <queries> <inserted rows>
+public class ItemPriceIndexBenchmark {
+
+    private static final double MAX_PRICE = 10_000.0;
+    private static final double RANGE_WIDTH = 10.0;
+
+    private static final String RANGE_SQL = "select id from item where price between ? and ? order by price, id";
+    private static final String COUNT_SQL = "select count(*) from item where price between ? and ?";
+    private static final String CHEAPEST_SQL = "select id from item order by price, id limit ?";
+    private static final String MOST_EXPENSIVE_SQL = "select id from item order by price desc, id desc limit ?";
+
+    public static void main(String[] args) throws Exception{
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int inserted = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        System.out.println("=== PRICE INDEX vs H2: " + rows + " rows ===");
+        try(Connection conn = DriverManager.getConnection("jdbc:h2:mem:prices", "sa", "")){
+            Main.createSchema(conn);
+            Random random = new Random(42);
+            new ItemBulkLoader(conn).load(LongStream.rangeClosed(1, rows).mapToObj(id -> item(id, random)));
+            try(Statement stmt = conn.createStatement()){
+                stmt.execute("create index item_price on item(price)");
+            }
+
+            long started = System.nanoTime();
+            ItemPriceIndex index = ItemPriceIndex.load(conn);
+            System.out.printf("index loaded: %d items in %.0f ms%n", index.size(), (System.nanoTime() - started) / 1e6);
+
+            boolean correct = check(conn, index, new Random(1), 200);
+
+            for(int round = 0; round < 3; round++){
+                boolean last = round == 2;
+                // different ranges every round - H2 would otherwise hand back cached results
+                long seed = 100 + round;
+
+                double sqlRange = time(queries, seed, (low, high) -> sqlIds(conn, RANGE_SQL, low, high, -1).length);
+                double indexRange = time(queries, seed, (low, high) -> index.idsBetween(low, high).length);
+                double sqlCount = time(queries, seed, (low, high) -> sqlCount(conn, low, high));
+                double indexCount = time(queries, seed, index::countBetween);
+                double sqlTop = time(queries, seed, (low, high) ->
+                    sqlIds(conn, low < MAX_PRICE / 2 ? CHEAPEST_SQL : MOST_EXPENSIVE_SQL, 0, 0, 10).length);
+                double indexTop = time(queries, seed, (low, high) ->
+                    (low < MAX_PRICE / 2 ? index.cheapest(10) : index.mostExpensive(10)).length);
+
+                if(last){
+                    System.out.printf("range (~%d rows)  : H2 %8.1f us   index %8.2f us   %6.0fx%n",
+                        index.countBetween(4_000, 4_000 + RANGE_WIDTH), sqlRange, indexRange, sqlRange / indexRange);
+                    System.out.printf("count in range    : H2 %8.1f us   index %8.2f us   %6.0fx%n",
+                        sqlCount, indexCount, sqlCount / indexCount);
+                    System.out.printf("top 10            : H2 %8.1f us   index %8.2f us   %6.0fx%n",
+                        sqlTop, indexTop, sqlTop / indexTop);
+                }
+            }
+
+            // the table and the index grow together
+            Random more = new Random(7);
+            Item[] items = LongStream.rangeClosed(rows + 1, rows + inserted).mapToObj(id -> item(id, more)).toArray(Item[]::new);
+            new ItemBulkLoader(conn).load(Arrays.stream(items));
+            started = System.nanoTime();
+            for(Item item : items){
+                index.insert(item);
+            }
+            System.out.printf("inserted %d items: %.0f ns per index insert%n",
+                inserted, (System.nanoTime() - started) / (double) inserted);
+            correct &= index.size() == rows + inserted;
+            correct &= check(conn, index, new Random(2), 200);
+
+            System.out.println(correct ? "TEST PASSED: index answers match H2" : "TEST FAILED");
+            if(!correct){
+                System.exit(1);
+            }
+        }
+    }
+
+    private interface Query {
+        long run(double low, double high) throws Exception;
+    }
+
+    // microseconds per query
+    private static double time(int queries, long seed, Query query) throws Exception{
+        Random random = new Random(seed);
+        long sink = 0;
+        long started = System.nanoTime();
+        for(int i = 0; i < queries; i++){
+            double low = random.nextDouble() * (MAX_PRICE - RANGE_WIDTH);
+            sink += query.run(low, low + RANGE_WIDTH);
+        }
+        long nanos = System.nanoTime() - started;
+        if(sink == 42){
+            System.out.print("");
+        }
+        return nanos / 1e3 / queries;
+    }
+
+    private static boolean check(Connection conn, ItemPriceIndex index, Random random, int ranges) throws Exception{
+        boolean same = Arrays.equals(index.cheapest(25), sqlIds(conn, CHEAPEST_SQL, 0, 0, 25))
+            && Arrays.equals(index.mostExpensive(25), sqlIds(conn, MOST_EXPENSIVE_SQL, 0, 0, 25));
+        for(int i = 0; i < ranges && same; i++){
+            double low = Math.floor(random.nextDouble() * MAX_PRICE * 100) / 100;
+            double high = low + random.nextInt(5_000) / 100.0;
+            same = Arrays.equals(index.idsBetween(low, high), sqlIds(conn, RANGE_SQL, low, high, -1))
+                && index.countBetween(low, high) == sqlCount(conn, low, high);
+        }
+        if(!same){
+            System.out.println("index and H2 disagree");
+        }
+        return same;
+    }
+
+    // limit >= 0: a top-k query without range parameters
+    private static long[] sqlIds(Connection conn, String sql, double low, double high, int limit) throws Exception{
+        try(PreparedStatement ps = conn.prepareStatement(sql)){
+            if(limit >= 0){
+                ps.setInt(1, limit);
+            } else {
+                ps.setDouble(1, low);
+                ps.setDouble(2, high);
+            }
+            try(ResultSet rs = ps.executeQuery()){
+                long[] ids = new long[16];
+                int n = 0;
+                while(rs.next()){
+                    if(n == ids.length){
+                        ids = Arrays.copyOf(ids, n * 2);
+                    }
+                    ids[n++] = rs.getLong(1);
+                }
+                return Arrays.copyOf(ids, n);
+            }
+        }
+    }
+
+    private static long sqlCount(Connection conn, double low, double high) throws Exception{
+        try(PreparedStatement ps = conn.prepareStatement(COUNT_SQL)){
+            ps.setDouble(1, low);
+            ps.setDouble(2, high);
+            try(ResultSet rs = ps.executeQuery()){
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    // prices in cents, so there are plenty of ties
+    private static Item item(long id, Random random){
+        return new Item(id, "Item " + id, random.nextInt((int) (MAX_PRICE * 100)) / 100.0);
+    }
+}
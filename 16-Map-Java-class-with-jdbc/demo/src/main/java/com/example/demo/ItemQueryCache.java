@@ -0,0 +1,339 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Read-through cache for item queries, in front of JDBC.
+//
+//   List<Item> all  = cache.findAllItems(conn);
+//   Item item       = cache.findItemById(conn, 42L);
+//   cache.insertItem(conn, new Item(43L, "Lamp", 20.0));
+//   cache.update(conn, "update item set price = ? where id = ?", 25.0, 43L);
+//
+// Results are keyed by SQL + parameters. The cache is bounded by an estimate of the
+// bytes the cached Items take (not by the number of queries - findAllItems can
+// weigh as much as 100_000 lookups); least recently used results go first.
+//
+// Writes that go through the cache invalidate exactly what they can affect:
+//   - results of "... from <table> where id = ?" depend on that one row only
+//   - any other result depends on every table it reads from
+// An insert/update/delete of row 43 therefore drops the cached lookup of row 43
+// and every table-wide result (findAllItems), but not the lookups of other rows.
+// A write without "where id = ?" drops everything cached for the table.
+//
+// A query that was running while a write to its table happened is not cached,
+// so a slow read can never put a stale result back after the invalidation.
+// Writes that bypass the cache are not seen - use invalidateTable for those.
+//
+// insertItem and update invalidate as soon as the statement has run, so they need
+// a connection in auto-commit mode: inside a transaction, a reader could cache the
+// old row between the invalidation and the commit. They refuse a connection with
+// auto-commit off; in a transaction, write directly and call invalidateRow or
+// invalidateTable after the commit.
+public class ItemQueryCache {
+
+    private static final Pattern TABLES = Pattern.compile("\\b(?:from|join)\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WRITTEN_TABLE =
+        Pattern.compile("^\\s*(?:insert\\s+into|update|delete\\s+from)\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE_ID = Pattern.compile("\\bwhere\\s+id\\s*=\\s*\\?\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern INSERT_ID_FIRST =
+        Pattern.compile("^\\s*insert\\s+into\\s+\\w+\\s*\\(\\s*id\\s*[,)]", Pattern.CASE_INSENSITIVE);
+
+    // rough heap cost: list slot + Item + Long + name String header and array
+    private static final long ITEM_WEIGHT = 8 + 32 + 16 + 24 + 16;
+    private static final long ENTRY_WEIGHT = 160;
+
+    private final long maxWeight;
+    private final RowMapper<Item> mapper = ConstructorRowMapper.of(Item.class);
+
+    // all guarded by "this"
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Set<Key>> byTable = new HashMap<>();
+    private final Map<String, Map<Long, Set<Key>>> byRow = new HashMap<>();
+    private final Map<String, Long> versions = new HashMap<>();
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ItemQueryCache(long maxWeightBytes){
+        if(maxWeightBytes < 1){
+            throw new IllegalArgumentException("maxWeightBytes must be positive: " + maxWeightBytes);
+        }
+        this.maxWeight = maxWeightBytes;
+    }
+
+    public List<Item> findAllItems(Connection conn) throws SQLException{
+        return query(conn, "select id, name, price from item");
+    }
+
+    // null if there is no such item
+    public Item findItemById(Connection conn, long id) throws SQLException{
+        List<Item> rows = query(conn, "select id, name, price from item where id = ?", id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // any select that returns id, name, price columns; the result is read-only
+    public List<Item> query(Connection conn, String sql, Object... params) throws SQLException{
+        Key key = new Key(sql, Arrays.asList(params.clone()));
+        Dependencies deps = dependenciesOf(sql, params);
+        long[] versionsBefore;
+        synchronized(this){
+            Entry cached = entries.get(key);
+            if(cached != null){
+                hits.increment();
+                return cached.rows;
+            }
+            versionsBefore = versionsOf(deps.tables);
+        }
+        misses.increment();
+
+        List<Item> rows = new ArrayList<>();
+        try(PreparedStatement ps = conn.prepareStatement(sql)){
+            for(int i = 0; i < params.length; i++){
+                ps.setObject(i + 1, params[i]);
+            }
+            try(ResultSet rs = ps.executeQuery()){
+                while(rs.next()){
+                    rows.add(mapper.mapRow(rs));
+                }
+            }
+        }
+        rows = Collections.unmodifiableList(rows);
+
+        synchronized(this){
+            if(Arrays.equals(versionsBefore, versionsOf(deps.tables)) && !entries.containsKey(key)){
+                put(key, new Entry(rows, deps, ENTRY_WEIGHT + sql.length() * 2L + rows.size() * ITEM_WEIGHT + nameBytes(rows)));
+            }
+        }
+        return rows;
+    }
+
+    // Main.insertItems plus invalidation of what the new row affects
+    public void insertItem(Connection conn, Item item) throws SQLException{
+        requireAutoCommit(conn);
+        try(PreparedStatement ps = conn.prepareStatement("insert into item(id, name, price) values (?, ?, ?)")){
+            ps.setLong(1, item.getId());
+            ps.setString(2, item.getName());
+            ps.setDouble(3, item.getPrice());
+            ps.executeUpdate();
+        }
+        invalidateRow("item", item.getId());
+    }
+
+    // insert/update/delete; invalidates one row for "... where id = ?" (or an insert with id
+    // as the first column), the whole table otherwise
+    public int update(Connection conn, String sql, Object... params) throws SQLException{
+        Matcher table = WRITTEN_TABLE.matcher(sql);
+        if(!table.find()){
+            throw new IllegalArgumentException("Not an insert, update or delete: " + sql);
+        }
+        requireAutoCommit(conn);
+        int changed;
+        try(PreparedStatement ps = conn.prepareStatement(sql)){
+            for(int i = 0; i < params.length; i++){
+                ps.setObject(i + 1, params[i]);
+            }
+            changed = ps.executeUpdate();
+        }
+
+        String name = table.group(1).toLowerCase(Locale.ROOT);
+        if(WHERE_ID.matcher(sql).find() && params.length > 0 && params[params.length - 1] instanceof Number id){
+            invalidateRow(name, id.longValue());
+        } else if(INSERT_ID_FIRST.matcher(sql).find() && params.length > 0 && params[0] instanceof Number id){
+            invalidateRow(name, id.longValue());
+        } else {
+            invalidateTable(name);
+        }
+        return changed;
+    }
+
+    public synchronized void invalidateRow(String table, long id){
+        String name = table.toLowerCase(Locale.ROOT);
+        bump(name);
+        // table-wide results include every row
+        for(Key key : new ArrayList<>(byTable.getOrDefault(name, Set.of()))){
+            remove(key);
+            invalidations.increment();
+        }
+        Map<Long, Set<Key>> rows = byRow.get(name);
+        if(rows != null){
+            for(Key key : new ArrayList<>(rows.getOrDefault(id, Set.of()))){
+                remove(key);
+                invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized void invalidateTable(String table){
+        String name = table.toLowerCase(Locale.ROOT);
+        bump(name);
+        List<Key> affected = new ArrayList<>(byTable.getOrDefault(name, Set.of()));
+        for(Set<Key> keys : byRow.getOrDefault(name, Map.of()).values()){
+            affected.addAll(keys);
+        }
+        for(Key key : affected){
+            remove(key);
+            invalidations.increment();
+        }
+    }
+
+    public long hitCount(){
+        return hits.sum();
+    }
+
+    public long missCount(){
+        return misses.sum();
+    }
+
+    public long evictionCount(){
+        return evictions.sum();
+    }
+
+    public long invalidationCount(){
+        return invalidations.sum();
+    }
+
+    public double hitRatio(){
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public synchronized long weight(){
+        return weight;
+    }
+
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    // must hold the monitor
+    private void put(Key key, Entry entry){
+        if(entry.weight > maxWeight){
+            return; // would evict everything else and still not fit
+        }
+        entries.put(key, entry);
+        weight += entry.weight;
+        if(entry.deps.rowId == null){
+            for(String table : entry.deps.tables){
+                byTable.computeIfAbsent(table, t -> new HashSet<>()).add(key);
+            }
+        } else {
+            byRow.computeIfAbsent(entry.deps.tables.get(0), t -> new HashMap<>())
+                .computeIfAbsent(entry.deps.rowId, id -> new HashSet<>()).add(key);
+        }
+
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while(weight > maxWeight && eldest.hasNext()){
+            Map.Entry<Key, Entry> victim = eldest.next();
+            eldest.remove();
+            unindex(victim.getKey(), victim.getValue());
+            evictions.increment();
+        }
+    }
+
+    // must hold the monitor
+    private void remove(Key key){
+        Entry entry = entries.remove(key);
+        if(entry != null){
+            unindex(key, entry);
+        }
+    }
+
+    // must hold the monitor; the entry is already out of the map
+    private void unindex(Key key, Entry entry){
+        weight -= entry.weight;
+        if(entry.deps.rowId == null){
+            for(String table : entry.deps.tables){
+                Set<Key> keys = byTable.get(table);
+                if(keys != null){
+                    keys.remove(key);
+                }
+            }
+        } else {
+            Map<Long, Set<Key>> rows = byRow.get(entry.deps.tables.get(0));
+            Set<Key> keys = rows == null ? null : rows.get(entry.deps.rowId);
+            if(keys != null){
+                keys.remove(key);
+                if(keys.isEmpty()){
+                    rows.remove(entry.deps.rowId);
+                }
+            }
+        }
+    }
+
+    // must hold the monitor
+    private void bump(String table){
+        versions.merge(table, 1L, Long::sum);
+    }
+
+    // must hold the monitor
+    private long[] versionsOf(List<String> tables){
+        long[] result = new long[tables.size()];
+        for(int i = 0; i < result.length; i++){
+            result[i] = versions.getOrDefault(tables.get(i), 0L);
+        }
+        return result;
+    }
+
+    // the write is committed when executeUpdate returns, so invalidating right after is safe
+    private static void requireAutoCommit(Connection conn) throws SQLException{
+        if(!conn.getAutoCommit()){
+            throw new IllegalStateException("Writes through ItemQueryCache need auto-commit; in a transaction, "
+                + "invalidate the affected rows or tables after the commit");
+        }
+    }
+
+    private static Dependencies dependenciesOf(String sql, Object[] params){
+        List<String> tables = new ArrayList<>();
+        Matcher matcher = TABLES.matcher(sql);
+        while(matcher.find()){
+            String table = matcher.group(1).toLowerCase(Locale.ROOT);
+            if(!tables.contains(table)){
+                tables.add(table);
+            }
+        }
+        if(tables.isEmpty()){
+            throw new IllegalArgumentException("Cannot tell which tables the query reads: " + sql);
+        }
+        if(tables.size() == 1 && WHERE_ID.matcher(sql).find()
+                && params.length > 0 && params[params.length - 1] instanceof Number id){
+            return new Dependencies(tables, id.longValue());
+        }
+        return new Dependencies(tables, null);
+    }
+
+    private static long nameBytes(List<Item> rows){
+        long bytes = 0;
+        for(Item item : rows){
+            bytes += item.getName() == null ? 0 : item.getName().length();
+        }
+        return bytes;
+    }
+
+    private record Key(String sql, List<Object> params) { }
+
+    // rowId == null: depends on all rows of all the tables
+    private record Dependencies(List<String> tables, Long rowId) { }
+
+    private record Entry(List<Item> rows, Dependencies deps, long weight) { }
+}
@@ -0,0 +1,180 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+// Read-heavy catalog traffic through ItemQueryCache.
+//
+// Worker threads share a ConnectionPool. Per operation: 97.5% lookups by id (80% of
+// them on 1% hot items), 0.5% findAllItems, 1% price updates, 1% inserts. The
+// same traffic is run once straight against the database for comparison.
+// Afterwards every cached lookup is compared with the database - a missed
+// invalidation shows up as a stale price - and a write on a connection with
+// auto-commit off must be refused.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.demo.ItemQueryCacheSimulation"
+//      optional args: <threads> <operations per thread> <items>
+public class ItemQueryCacheSimulation {
+
+    private static final String URL = "jdbc:h2:mem:catalog;DB_CLOSE_DELAY=-1";
+
+    public static void main(String[] args) throws Exception{
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int items = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        System.out.println("=== ITEM QUERY CACHE: " + threads + " threads x " + operations + " ops, " + items + " items ===");
+        try(ConnectionPool pool = new ConnectionPool(URL, "sa", "", 1, threads, 16,
+                Duration.ofSeconds(30), Duration.ofSeconds(30))){
+            try(Connection conn = pool.getConnection()){
+                Main.createSchema(conn);
+                new ItemBulkLoader(conn).load(LongStream.rangeClosed(1, items)
+                    .mapToObj(id -> new Item(id, "Item " + id, id % 1000 + 0.99)));
+            }
+
+            AtomicLong nextId = new AtomicLong(items + 1);
+            long started = System.nanoTime();
+            run(pool, null, threads, operations, items, nextId);
+            double direct = threads * (double) operations / ((System.nanoTime() - started) / 1e9);
+
+            ItemQueryCache cache = new ItemQueryCache(16L << 20);
+            started = System.nanoTime();
+            run(pool, cache, threads, operations, items, nextId);
+            double cached = threads * (double) operations / ((System.nanoTime() - started) / 1e9);
+
+            System.out.printf("direct : %8.0f ops/sec%n", direct);
+            System.out.printf("cached : %8.0f ops/sec, hit ratio %.1f%%, %d queries reached H2%n",
+                cached, cache.hitRatio() * 100, cache.missCount());
+            System.out.printf("cache  : %d entries, ~%d KB, %d evictions, %d invalidations%n",
+                cache.size(), cache.weight() >> 10, cache.evictionCount(), cache.invalidationCount());
+
+            int stale = 0;
+            try(Connection conn = pool.getConnection();
+                PreparedStatement ps = conn.prepareStatement("select price from item where id = ?")){
+                for(long id = 1; id < nextId.get(); id++){
+                    Item item = cache.findItemById(conn, id);
+                    ps.setLong(1, id);
+                    try(ResultSet rs = ps.executeQuery()){
+                        if(rs.next() != (item != null) || item != null && rs.getDouble(1) != item.getPrice()){
+                            stale++;
+                        }
+                    }
+                }
+                if(cache.findAllItems(conn).size() != nextId.get() - 1){
+                    stale++;
+                }
+            }
+            System.out.println("stale results: " + stale);
+
+            // inside a transaction the cache cannot invalidate at the right moment, so it refuses
+            boolean refused = false;
+            try(Connection conn = pool.getConnection()){
+                conn.setAutoCommit(false);
+                try{
+                    cache.update(conn, "update item set price = ? where id = ?", 1.0, 1L);
+                } catch(IllegalStateException e){
+                    refused = true;
+                } finally {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+            }
+            System.out.println("write without auto-commit " + (refused ? "refused" : "accepted"));
+
+            boolean passed = stale == 0 && refused;
+            System.out.println(passed ? "TEST PASSED: cache agrees with the database" : "TEST FAILED");
+            if(!passed){
+                System.exit(1);
+            }
+        }
+    }
+
+    // cache == null: every query goes to the database
+    private static void run(ConnectionPool pool, ItemQueryCache cache, int threads, int operations, int items,
+                            AtomicLong nextId) throws Exception{
+        List<Thread> workers = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        for(int t = 0; t < threads; t++){
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try{
+                    for(int i = 0; i < operations; i++){
+                        int dice = random.nextInt(1000);
+                        try(Connection conn = pool.getConnection()){
+                            if(dice < 975){
+                                long id = random.nextInt(10) < 8
+                                    ? 1 + random.nextInt(Math.max(1, items / 100))
+                                    : 1 + random.nextInt(items);
+                                if(cache != null){
+                                    cache.findItemById(conn, id);
+                                } else {
+                                    lookup(conn, id);
+                                }
+                            } else if(dice < 980){
+                                if(cache != null){
+                                    cache.findAllItems(conn);
+                                } else {
+                                    Main.findAllItems(conn);
+                                }
+                            } else if(dice < 990){
+                                String sql = "update item set price = ? where id = ?";
+                                double price = random.nextInt(100_000) / 100.0;
+                                long id = 1 + random.nextInt(items);
+                                if(cache != null){
+                                    cache.update(conn, sql, price, id);
+                                } else {
+                                    try(PreparedStatement ps = conn.prepareStatement(sql)){
+                                        ps.setDouble(1, price);
+                                        ps.setLong(2, id);
+                                        ps.executeUpdate();
+                                    }
+                                }
+                            } else {
+                                long id = nextId.getAndIncrement();
+                                Item item = new Item(id, "New Item " + id, 9.99);
+                                if(cache != null){
+                                    cache.insertItem(conn, item);
+                                } else {
+                                    try(PreparedStatement ps = conn.prepareStatement("insert into item(id, name, price) values (?, ?, ?)")){
+                                        ps.setLong(1, id);
+                                        ps.setString(2, item.getName());
+                                        ps.setDouble(3, item.getPrice());
+                                        ps.executeUpdate();
+                                    }
+                                }
+                            }
+                        }
+                    }
+                } catch(Exception e){
+                    synchronized(failures){
+                        failures.add(e);
+                    }
+                }
+            }, "catalog-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        for(Thread worker : workers){
+            worker.join();
+        }
+        if(!failures.isEmpty()){
+            throw failures.get(0);
+        }
+    }
+
+    private static void lookup(Connection conn, long id) throws Exception{
+        try(PreparedStatement ps = conn.prepareStatement("select id, name, price from item where id = ?")){
+            ps.setLong(1, id);
+            try(ResultSet rs = ps.executeQuery()){
+                rs.next();
+            }
+        }
+    }
+}
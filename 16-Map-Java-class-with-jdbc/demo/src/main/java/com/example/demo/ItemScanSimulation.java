@@ -0,0 +1,102 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Full-table reads three ways, with the extra heap each one needs:
+//   findAllItems    - everything in one ArrayList
+//   streamAllItems  - one row at a time from the cursor
+//   findItemsAfter  - keyset pages of 10_000 rows
+// Live heap is sampled every 100_000 rows; the in-memory database itself is the baseline.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.demo.ItemScanSimulation"
+//      optional arg: <rows>
+public class ItemScanSimulation {
+
+    // lazy execution: H2 produces rows as the cursor asks for them instead of materializing the result
+    private static final String URL = "jdbc:h2:mem:scan;LAZY_QUERY_EXECUTION=TRUE";
+    private static final int PAGE = 10_000;
+
+    private static long baseline;
+    private static long peak;
+    private static long samplingNanos;
+
+    public static void main(String[] args) throws Exception{
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 2_000_000;
+
+        System.out.println("=== ITEM SCAN ===");
+        try(Connection conn = DriverManager.getConnection(URL, "sa", "")){
+            Main.createSchema(conn);
+            Stream<Item> generated = LongStream.rangeClosed(1, rows)
+                .mapToObj(id -> new Item(id, "Item " + id, id % 1000 + 0.99));
+            System.out.println("loaded " + new ItemBulkLoader(conn, 100, 100, 100_000).load(generated));
+
+            startMeasuring();
+            long started = System.nanoTime();
+            List<Item> all = Main.findAllItems(conn);
+            sample();
+            report("findAllItems  ", all.size(), started);
+            all = null;
+
+            startMeasuring();
+            started = System.nanoTime();
+            long[] seen = {0};
+            Main.forEachItem(conn, 1_000, item -> {
+                if(++seen[0] % 100_000 == 0){
+                    sample();
+                }
+            });
+            report("streamAllItems", seen[0], started);
+
+            startMeasuring();
+            started = System.nanoTime();
+            long paged = 0;
+            long afterId = Long.MIN_VALUE;
+            List<Item> page;
+            while(!(page = Main.findItemsAfter(conn, afterId, PAGE)).isEmpty()){
+                paged += page.size();
+                afterId = page.get(page.size() - 1).getId();
+                if(paged % 100_000 == 0){
+                    sample();
+                }
+            }
+            report("keyset pages  ", paged, started);
+
+            boolean passed = seen[0] == rows && paged == rows;
+            System.out.println(passed ? "TEST PASSED: every row read once" : "TEST FAILED");
+            if(!passed){
+                System.exit(1);
+            }
+        }
+    }
+
+    private static void startMeasuring(){
+        System.gc();
+        baseline = usedHeap();
+        peak = baseline;
+        samplingNanos = 0;
+    }
+
+    // live data only: garbage left by rows already processed does not count
+    private static void sample(){
+        long started = System.nanoTime();
+        System.gc();
+        peak = Math.max(peak, usedHeap());
+        samplingNanos += System.nanoTime() - started;
+    }
+
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(String label, long rows, long started){
+        // the forced GCs are not part of the read
+        double seconds = (System.nanoTime() - started - samplingNanos) / 1e9;
+        System.out.printf("%s: %d rows in %.2f s, extra heap at peak ~%d MB%n",
+            label, rows, seconds, Math.max(0, peak - baseline) >> 20);
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Asynchronous item inserts with group commit.
+//
+//   try(ItemWriteBehind writer = ItemWriteBehind.start(conn)){
+//       CompletableFuture<Void> done = writer.submit(new Item(7L, "Lamp", 20.0));
+//       done.join();   // the row is committed
+//   }
+//
+// insertItems pays a whole transaction per row. Here any number of producer
+// threads put items into a bounded queue, and one writer thread takes them out in
+// groups and inserts each group as one JDBC batch in one transaction. A group is
+// closed when it has maxBatch rows or maxDelay after its first row, whichever comes
+// first (maxDelay = 0: just take what is queued - batches then grow with load on
+// their own, because rows pile up while the previous commit runs).
+//
+// Every submit gets a future that completes once its row is committed - or
+// completes exceptionally with the exception for that row. If a batch fails, it
+// is rolled back and its rows are retried one per transaction, so one bad row
+// (say a duplicate id) does not fail the rows that were grouped with it. An item
+// without an id is rejected by submit right away.
+//
+// The queue is a lock-free ring buffer (multi-producer, single-consumer). When it
+// is full, submit waits for room (backpressure) up to the enqueue timeout and then
+// throws IllegalStateException. Futures are completed on the writer thread: chain
+// only quick work on them, or use the *Async variants.
+//
+// The writer owns the connection (auto-commit is switched off) until close(), which
+// writes everything already queued and gives the connection back with its
+// original auto-commit setting before it returns.
+public class ItemWriteBehind implements AutoCloseable {
+
+    private static final String INSERT = "insert into item(id, name, price) values (?, ?, ?)";
+
+    private final Connection conn;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final long enqueueTimeoutNanos;
+    // the caller's setting, restored when the writer stops
+    private final boolean autoCommit;
+
+    // ring buffer: slot i is free for position p when sequence[i] == p,
+    // and holds the item of position p when sequence[i] == p + 1
+    private final int mask;
+    private final AtomicReferenceArray<Pending> slots;
+    private final AtomicLongArray sequence;
+    private final AtomicLong tail = new AtomicLong();
+    // written by the writer thread only
+    private volatile long head;
+    // submits between their closed check and their offer; close() waits for them
+    private final AtomicInteger submitting = new AtomicInteger();
+
+    private final Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+    private volatile SQLException fatal;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder fullWaits = new LongAdder();
+
+    // groups of up to 1_000 rows without waiting for more, 8192 queued, 30s enqueue timeout.
+    // A time window only pays off when producers do not wait for their futures: a
+    // thread blocked on join() cannot add to the group the writer is waiting to fill.
+    public static ItemWriteBehind start(Connection conn) throws SQLException{
+        return start(conn, 8_192, 1_000, Duration.ZERO, Duration.ofSeconds(30));
+    }
+
+    public static ItemWriteBehind start(Connection conn, int capacity, int maxBatch, Duration maxDelay,
+                                        Duration enqueueTimeout) throws SQLException{
+        ItemWriteBehind writeBehind = new ItemWriteBehind(conn, capacity, maxBatch, maxDelay, enqueueTimeout);
+        writeBehind.writer.start();
+        return writeBehind;
+    }
+
+    private ItemWriteBehind(Connection conn, int capacity, int maxBatch, Duration maxDelay, Duration enqueueTimeout)
+            throws SQLException{
+        if(capacity < 1 || maxBatch < 1 || maxDelay.isNegative()){
+            throw new IllegalArgumentException("capacity and maxBatch must be positive, maxDelay not negative");
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.conn = conn;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.enqueueTimeoutNanos = enqueueTimeout.toNanos();
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequence = new AtomicLongArray(size);
+        for(int i = 0; i < size; i++){
+            sequence.set(i, i);
+        }
+        this.autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        this.writer = new Thread(this::writeLoop, "item-write-behind");
+    }
+
+    public CompletableFuture<Void> submit(Item item){
+        return submit(item, enqueueTimeoutNanos);
+    }
+
+    public CompletableFuture<Void> submit(Item item, Duration enqueueTimeout){
+        return submit(item, enqueueTimeout.toNanos());
+    }
+
+    private CompletableFuture<Void> submit(Item item, long timeoutNanos){
+        if(item == null || item.getId() == null){
+            throw new IllegalArgumentException("Item must have an id: " + item);
+        }
+        Pending pending = new Pending(item, new CompletableFuture<>());
+        submitting.incrementAndGet();
+        try{
+            if(closed){
+                throw new IllegalStateException("Write-behind queue is closed");
+            }
+            if(!offer(pending)){
+                fullWaits.increment();
+                long deadline = System.nanoTime() + timeoutNanos;
+                long backoff = 1_000;
+                do{
+                    if(closed){
+                        throw new IllegalStateException("Write-behind queue is closed");
+                    }
+                    if(System.nanoTime() - deadline >= 0){
+                        throw new IllegalStateException("Write-behind queue still full after "
+                            + Duration.ofNanos(timeoutNanos));
+                    }
+                    wakeWriter();
+                    // the writer frees a whole batch of slots at once, so a short nap is enough
+                    LockSupport.parkNanos(backoff);
+                    backoff = Math.min(backoff * 2, 1_000_000);
+                } while(!offer(pending));
+            }
+        } finally {
+            submitting.decrementAndGet();
+        }
+        wakeWriter();
+        return pending.done;
+    }
+
+    // rows committed so far
+    public long rowCount(){
+        return rows.sum();
+    }
+
+    public long batchCount(){
+        return batches.sum();
+    }
+
+    // submits that found the queue full and had to wait
+    public long fullWaitCount(){
+        return fullWaits.sum();
+    }
+
+    public int queued(){
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    // writes what is queued, then stops the writer; the connection stays open
+    @Override
+    public void close(){
+        closed = true;
+        LockSupport.unpark(writer);
+        try{
+            writer.join();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean offer(Pending pending){
+        long position = tail.get();
+        while(true){
+            int index = (int) (position & mask);
+            long diff = sequence.get(index) - position;
+            if(diff == 0){
+                if(tail.compareAndSet(position, position + 1)){
+                    slots.set(index, pending);
+                    sequence.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if(diff < 0){
+                return false; // full: the writer has not freed this slot yet
+            } else {
+                position = tail.get(); // another producer took it
+            }
+        }
+    }
+
+    // writer thread only
+    private boolean peek(){
+        return sequence.get((int) (head & mask)) == head + 1;
+    }
+
+    // writer thread only
+    private Pending poll(){
+        if(!peek()){
+            return null;
+        }
+        int index = (int) (head & mask);
+        Pending pending = slots.get(index);
+        slots.set(index, null);
+        sequence.set(index, head + slots.length());
+        head++;
+        return pending;
+    }
+
+    private void wakeWriter(){
+        if(writerParked){
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void writeLoop(){
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        try(PreparedStatement ps = conn.prepareStatement(INSERT)){
+            while(true){
+                Pending first = poll();
+                if(first == null){
+                    // closed, no submit can still be on its way in, and nothing left
+                    if(closed && submitting.get() == 0 && !peek()){
+                        return;
+                    }
+                    park(closed ? System.nanoTime() + 100_000 : Long.MAX_VALUE);
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while(batch.size() < maxBatch){
+                    Pending next = poll();
+                    if(next != null){
+                        batch.add(next);
+                    } else if(maxDelayNanos == 0 || closed || System.nanoTime() - deadline >= 0){
+                        break;
+                    } else {
+                        park(deadline);
+                    }
+                }
+                write(ps, batch);
+                batch.clear();
+            }
+        } catch(SQLException e){
+            // could not even prepare the insert: nothing can be written
+            fatal = e;
+        } finally {
+            closed = true;
+            SQLException error = fatal != null ? fatal : new SQLException("Write-behind writer stopped");
+            for(Pending p : batch){
+                p.done.completeExceptionally(error);
+            }
+            // submits already past their closed check may still put an item in
+            while(submitting.get() != 0){
+                LockSupport.parkNanos(100_000);
+            }
+            Pending left;
+            while((left = poll()) != null){
+                left.done.completeExceptionally(error);
+            }
+            try{
+                conn.setAutoCommit(autoCommit);
+            } catch(SQLException ignored){
+                // the connection is broken; nothing was left uncommitted
+            }
+        }
+    }
+
+    // parks until unparked by a producer, or until the deadline (System.nanoTime based)
+    private void park(long deadline){
+        writerParked = true;
+        try{
+            // re-check after announcing: a producer that offered just before saw writerParked == false
+            if(peek() || closed && deadline == Long.MAX_VALUE){
+                return;
+            }
+            if(deadline == Long.MAX_VALUE){
+                LockSupport.park(this);
+            } else {
+                LockSupport.parkNanos(this, deadline - System.nanoTime());
+            }
+        } finally {
+            writerParked = false;
+        }
+    }
+
+    private void write(PreparedStatement ps, List<Pending> batch){
+        try{
+            for(Pending p : batch){
+                bind(ps, p.item);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            conn.commit();
+            batches.increment();
+            rows.add(batch.size());
+            for(Pending p : batch){
+                p.done.complete(null);
+            }
+        } catch(SQLException | RuntimeException e){
+            rollbackQuietly(ps);
+            // find the bad row(s): one transaction per row
+            for(Pending p : batch){
+                try{
+                    bind(ps, p.item);
+                    ps.executeUpdate();
+                    conn.commit();
+                    rows.increment();
+                    p.done.complete(null);
+                } catch(SQLException | RuntimeException rowError){
+                    rollbackQuietly(ps);
+                    p.done.completeExceptionally(rowError);
+                }
+            }
+            batches.increment();
+        }
+    }
+
+    private void rollbackQuietly(PreparedStatement ps){
+        try{
+            ps.clearBatch();
+            conn.rollback();
+        } catch(SQLException ignored){
+            // the per-row retry will report the problem
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Item item) throws SQLException{
+        ps.setLong(1, item.getId());
+        ps.setString(2, item.getName());
+        ps.setDouble(3, item.getPrice());
+    }
+
+    private record Pending(Item item, CompletableFuture<Void> done) { }
+}
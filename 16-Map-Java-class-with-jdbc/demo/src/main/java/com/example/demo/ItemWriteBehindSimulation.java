@@ -0,0 +1,174 @@
+package com.example.demo;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Many threads inserting items into an H2 file database (WRITE_DELAY=0: every
+// commit is written to the file before it returns), three ways:
+//   per row           - like insertItems: prepare, execute, auto-commit; a pooled
+//                       connection per thread
+//   write-behind      - every thread waits for its row's future before the next one
+//                       (same semantics as per row), the writer group-commits
+//                       whatever queued up during the previous commit
+//   write-behind, pipelined - threads submit everything and wait at the end; groups
+//                       of 1000 rows or 1ms, and a small queue makes them hit backpressure
+// Then a duplicate id inside a batch: only that row's future fails; and an item
+// without an id is rejected by submit.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.demo.ItemWriteBehindSimulation"
+//      optional args: <threads> <rows per thread>
+public class ItemWriteBehindSimulation {
+
+    private interface Producer {
+        void run(int thread, long firstId, int rows) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception{
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int rowsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        Path dir = Files.createTempDirectory("write-behind");
+        String url = "jdbc:h2:file:" + dir.resolve("items").toAbsolutePath() + ";WRITE_DELAY=0";
+        System.out.println("=== WRITE-BEHIND INSERTS: " + threads + " threads x " + rowsPerThread + " rows ===");
+
+        try(ConnectionPool pool = new ConnectionPool(url, "sa", "", 1, threads + 1, 16,
+                Duration.ofSeconds(30), Duration.ofMinutes(5))){
+            try(Connection conn = pool.getConnection()){
+                Main.createSchema(conn);
+            }
+            AtomicLong nextId = new AtomicLong(1);
+            boolean correct = true;
+
+            double perRow = run("per row", threads, rowsPerThread, nextId, (thread, firstId, rows) -> {
+                for(int i = 0; i < rows; i++){
+                    try(Connection conn = pool.getConnection();
+                        PreparedStatement ps = conn.prepareStatement("insert into item(id, name, price) values (?, ?, ?)")){
+                        ps.setLong(1, firstId + i);
+                        ps.setString(2, "Item " + (firstId + i));
+                        ps.setDouble(3, 9.99);
+                        ps.executeUpdate();
+                    }
+                }
+            });
+
+            try(Connection conn = pool.getConnection();
+                ItemWriteBehind writer = ItemWriteBehind.start(conn)){
+                double waited = run("write-behind", threads, rowsPerThread, nextId, (thread, firstId, rows) -> {
+                    for(int i = 0; i < rows; i++){
+                        writer.submit(new Item(firstId + i, "Item " + (firstId + i), 9.99)).join();
+                    }
+                });
+                System.out.printf("  %d batches, %.1f rows per commit, %.1fx the per-row rate%n",
+                    writer.batchCount(), writer.rowCount() / (double) writer.batchCount(), waited / perRow);
+            }
+
+            try(Connection conn = pool.getConnection();
+                ItemWriteBehind writer = ItemWriteBehind.start(conn, 1_024, 1_000, Duration.ofMillis(1), Duration.ofSeconds(30))){
+                double pipelined = run("write-behind, pipelined", threads, rowsPerThread, nextId, (thread, firstId, rows) -> {
+                    List<CompletableFuture<Void>> pending = new ArrayList<>(rows);
+                    for(int i = 0; i < rows; i++){
+                        pending.add(writer.submit(new Item(firstId + i, "Item " + (firstId + i), 9.99)));
+                    }
+                    CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+                });
+                System.out.printf("  %d batches, %.1f rows per commit, %d submits waited for room, %.1fx the per-row rate%n",
+                    writer.batchCount(), writer.rowCount() / (double) writer.batchCount(), writer.fullWaitCount(),
+                    pipelined / perRow);
+
+                // id 1 exists already: only its own future may fail
+                CompletableFuture<Void> before = writer.submit(new Item(nextId.get(), "Before", 1.0));
+                CompletableFuture<Void> duplicate = writer.submit(new Item(1L, "Duplicate", 1.0));
+                CompletableFuture<Void> after = writer.submit(new Item(nextId.get() + 1, "After", 1.0));
+                nextId.addAndGet(2);
+                boolean duplicateFailed = false;
+                try{
+                    duplicate.join();
+                } catch(CompletionException e){
+                    duplicateFailed = true;
+                    System.out.println("duplicate id rejected: " + e.getCause().getClass().getSimpleName());
+                }
+                before.join();
+                after.join();
+                correct &= duplicateFailed;
+
+                // no id at all: rejected up front, and the writer keeps going
+                boolean missingIdRejected = false;
+                try{
+                    writer.submit(new Item(null, "No id", 1.0));
+                } catch(IllegalArgumentException e){
+                    missingIdRejected = true;
+                }
+                writer.submit(new Item(nextId.getAndIncrement(), "Still writing", 1.0)).join();
+                correct &= missingIdRejected;
+            }
+
+            long expected = nextId.get() - 1;
+            try(Connection conn = pool.getConnection();
+                PreparedStatement ps = conn.prepareStatement("select count(*), count(distinct id) from item");
+                ResultSet rs = ps.executeQuery()){
+                rs.next();
+                System.out.println("rows in table: " + rs.getLong(1) + " (expected " + expected + ")");
+                correct &= rs.getLong(1) == expected && rs.getLong(2) == expected;
+            }
+
+            // the connection goes back to its owner as it came
+            try(Connection conn = pool.getConnection()){
+                ItemWriteBehind.start(conn).close();
+                if(!conn.getAutoCommit()){
+                    System.out.println("auto-commit still off after close()");
+                    correct = false;
+                }
+            }
+
+            System.out.println(correct ? "TEST PASSED: every acknowledged row is in the table" : "TEST FAILED");
+            if(!correct){
+                System.exit(1);
+            }
+        } finally {
+            try(var files = Files.walk(dir)){
+                files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    // rows per second over all threads
+    private static double run(String name, int threads, int rowsPerThread, AtomicLong nextId, Producer producer)
+            throws Exception{
+        List<Thread> workers = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        long started = System.nanoTime();
+        for(int t = 0; t < threads; t++){
+            int thread = t;
+            long firstId = nextId.getAndAdd(rowsPerThread);
+            Thread worker = new Thread(() -> {
+                try{
+                    producer.run(thread, firstId, rowsPerThread);
+                } catch(Exception e){
+                    synchronized(failures){
+                        failures.add(e);
+                    }
+                }
+            }, "producer-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        for(Thread worker : workers){
+            worker.join();
+        }
+        if(!failures.isEmpty()){
+            throw failures.get(0);
+        }
+        double rate = threads * (double) rowsPerThread / ((System.nanoTime() - started) / 1e9);
+        System.out.printf("%-24s: %9.0f rows/sec%n", name, rate);
+        return rate;
+    }
+}
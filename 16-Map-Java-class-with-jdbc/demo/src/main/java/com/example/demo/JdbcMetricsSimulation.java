@@ -0,0 +1,112 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+// The demo's own JDBC code (createSchema, insertItems, findAllItems) plus the bulk
+// loader and some ad-hoc SQL, run on a JdbcMetrics-wrapped connection:
+//   - the report shows calls, rows and latency percentiles per statement
+//   - 1000 lookups with the id pasted into the SQL come out as one statement
+//   - a slow, parameterized scan lands in the slow log with its parameters
+// Then the cost of the wrapper: the same prepared lookup by id, raw vs wrapped.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.demo.JdbcMetricsSimulation"
+//      optional args: <rows> <lookups for the overhead test>
+public class JdbcMetricsSimulation {
+
+    public static void main(String[] args) throws Exception{
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 200_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 300_000;
+
+        System.out.println("=== JDBC METRICS ===");
+        List<String> slowLog = new ArrayList<>();
+        JdbcMetrics metrics = new JdbcMetrics(Duration.ofMillis(20), Duration.ofSeconds(10), 6, slowLog::add);
+
+        try(Connection raw = DriverManager.getConnection("jdbc:h2:mem:metrics", "sa", "")){
+            Connection conn = metrics.wrap(raw);
+            Main.createSchema(conn);
+            Main.insertItems(conn, 1L, "Vintage Camera", 420.00);
+            Main.insertItems(conn, 2L, "Mechanical Keyboard", 100.00);
+            new ItemBulkLoader(conn).load(LongStream.rangeClosed(3, rows)
+                .mapToObj(id -> new Item(id, "Item " + id, id % 1000 + 0.99)));
+
+            long found = 0;
+            for(int i = 0; i < 3; i++){
+                found += Main.findAllItems(conn).size();
+            }
+            try(Statement stmt = conn.createStatement()){
+                for(int id = 1; id <= 1_000; id++){
+                    try(ResultSet rs = stmt.executeQuery("select id, name, price from item where id = " + id)){
+                        rs.next();
+                    }
+                }
+            }
+            try(PreparedStatement ps = conn.prepareStatement("select count(*) from item where price > ? and name like ?")){
+                ps.setDouble(1, 500.0);
+                ps.setString(2, "%77%");
+                try(ResultSet rs = ps.executeQuery()){
+                    rs.next();
+                }
+            }
+
+            System.out.println();
+            System.out.print(metrics.report());
+            System.out.println();
+            System.out.println("slow log (> 20 ms):");
+            slowLog.forEach(line -> System.out.println("  " + line));
+
+            boolean correct = found == 3 * rows;
+            JdbcMetrics.StatementStats literal = null;
+            JdbcMetrics.StatementStats scan = null;
+            for(JdbcMetrics.StatementStats s : metrics.snapshot()){
+                if(s.sql().equals("select id, name, price from item where id = ?")){
+                    literal = s;
+                } else if(s.sql().equals("Select id, name, price from item")){
+                    correct &= s.executions() == 3 && s.rows() == 3 * rows;
+                }
+                if(s.sql().startsWith("select count(*) from item where price")){
+                    scan = s;
+                }
+            }
+            correct &= literal != null && literal.executions() == 1_000 && literal.rows() == 1_000;
+            correct &= scan != null && (scan.execute().maxNanos() + scan.fetch().maxNanos() < 20_000_000
+                || slowLog.stream().anyMatch(line -> line.contains("[500.0, '%77%']")));
+
+            System.out.println();
+            double plain = lookupNanos(raw, lookups);
+            double measured = lookupNanos(conn, lookups);
+            plain = lookupNanos(raw, lookups);
+            measured = lookupNanos(conn, lookups);
+            System.out.printf("lookup by id: %.0f ns raw, %.0f ns measured (+%.0f ns, %.1f%%)%n",
+                plain, measured, measured - plain, (measured - plain) / plain * 100);
+
+            System.out.println(correct ? "TEST PASSED: every statement accounted for" : "TEST FAILED");
+            if(!correct){
+                System.exit(1);
+            }
+        }
+    }
+
+    private static double lookupNanos(Connection conn, int lookups) throws Exception{
+        long started = System.nanoTime();
+        try(PreparedStatement ps = conn.prepareStatement("select id, name, price from item where id = ?")){
+            for(int i = 0; i < lookups; i++){
+                ps.setLong(1, 1 + i % 100_000);
+                try(ResultSet rs = ps.executeQuery()){
+                    rs.next();
+                    rs.getLong(1);
+                    rs.getString(2);
+                    rs.getDouble(3);
+                }
+            }
+        }
+        return (System.nanoTime() - started) / (double) lookups;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free latency histogram in the spirit of HdrHistogram.
+//
+// Values (nanoseconds) go into log-linear buckets: exact below 16, above that
+// 16 sub-buckets per power of two, i.e. every bucket is within ~6% of the value.
+// That is 960 counters (~8 KB), small enough to keep several per SQL statement.
+// Recording is one atomic increment (plus a CAS in the rare case of a new max).
+//
+// A separate class from the tacos lab's LatencyHistogram on purpose: the labs are
+// independent Maven projects, and this one only has what JdbcMetrics needs - coarser
+// buckets, plus() to add up time windows.
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // enough buckets for any non-negative long
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos){
+        long value = Math.max(0, nanos);
+        counts.getAndIncrement(bucketOf(value));
+        long currentMax = max.get();
+        while(value > currentMax && !max.compareAndSet(currentMax, value)){
+            currentMax = max.get();
+        }
+    }
+
+    // point-in-time copy; concurrent recordings may or may not be included
+    public Snapshot snapshot(){
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, max.get());
+    }
+
+    static int bucketOf(long value){
+        if(value < SUB_BUCKETS){
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // highest value that lands in the bucket
+    static long upperBoundOf(int bucket){
+        if(bucket < SUB_BUCKETS){
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    public static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new long[BUCKETS], 0, 0);
+
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long max){
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+        }
+
+        public long count(){
+            return count;
+        }
+
+        public long max(){
+            return max;
+        }
+
+        // e.g. percentile(99.9); 0 if nothing was recorded
+        public long percentile(double percentile){
+            if(count == 0){
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for(int i = 0; i < counts.length; i++){
+                seen += counts[i];
+                if(seen >= rank){
+                    return Math.min(upperBoundOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        // both distributions together, e.g. several time windows
+        public Snapshot plus(Snapshot other){
+            long[] sum = counts.clone();
+            for(int i = 0; i < sum.length; i++){
+                sum[i] += other.counts[i];
+            }
+            return new Snapshot(sum, count + other.count, Math.max(max, other.max));
+        }
+    }
+}
@@ -4,8 +4,12 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Main {
     
@@ -21,8 +25,9 @@ public class Main {
                 )
                 """;
         
-        Statement stmt = conn.createStatement();
-        stmt.execute(ddl);
+        try(Statement stmt = conn.createStatement()){
+            stmt.execute(ddl);
+        }
         System.out.println("Table ITEM Created");
         
     }
@@ -69,6 +74,87 @@ public class Main {
         return items;
     }
 
+    // Same rows as findAllItems, but pulled from the cursor one at a time while the
+    // stream is consumed - memory stays flat for any table size. Close the stream
+    // (try-with-resources) to release the cursor early; it is also released as soon
+    // as the last row has been read.
+    // fetchSize = rows per round trip for drivers that stream (e.g. PostgreSQL with
+    // auto-commit off); H2 streams with LAZY_QUERY_EXECUTION=TRUE in the URL.
+    public static Stream<Item> streamAllItems(Connection conn, int fetchSize) throws SQLException{
+        String dql = "select id, name, price from item";
+
+        PreparedStatement ps = conn.prepareStatement(dql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ResultSet rs;
+        try{
+            ps.setFetchSize(fetchSize);
+            rs = ps.executeQuery();
+        } catch(SQLException e){
+            ps.close();
+            throw e;
+        }
+
+        Runnable release = () -> {
+            try{
+                rs.close();
+                ps.close();
+            } catch(SQLException e){
+                throw new IllegalStateException("Could not close item cursor", e);
+            }
+        };
+
+        Spliterator<Item> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE){
+            @Override
+            public boolean tryAdvance(Consumer<? super Item> action){
+                try{
+                    if(!rs.next()){
+                        release.run();
+                        return false;
+                    }
+                    // column positions instead of names: no lookup per row
+                    action.accept(new Item(rs.getLong(1), rs.getString(2), rs.getDouble(3)));
+                    return true;
+                } catch(SQLException e){
+                    release.run();
+                    throw new IllegalStateException("Could not read next item", e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(release);
+    }
+
+    // push version of streamAllItems: every row goes to the callback, the cursor is always closed
+    public static long forEachItem(Connection conn, int fetchSize, Consumer<Item> action) throws SQLException{
+        long rows = 0;
+        try(Stream<Item> items = streamAllItems(conn, fetchSize)){
+            Iterator<Item> it = items.iterator();
+            while(it.hasNext()){
+                action.accept(it.next());
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    // Keyset pagination: the page after the last id seen, at most `limit` rows, ordered by id.
+    // Unlike "offset N" the database seeks straight to afterId on the primary key,
+    // so page 100_000 costs the same as page 1. Start with afterId = Long.MIN_VALUE.
+    public static List<Item> findItemsAfter(Connection conn, long afterId, int limit) throws SQLException{
+        String dql = "select id, name, price from item where id > ? order by id limit ?";
+
+        try(PreparedStatement ps = conn.prepareStatement(dql)){
+            ps.setLong(1, afterId);
+            ps.setInt(2, limit);
+            try(ResultSet rs = ps.executeQuery()){
+                List<Item> page = new ArrayList<>(limit);
+                while(rs.next()){
+                    page.add(new Item(rs.getLong(1), rs.getString(2), rs.getDouble(3)));
+                }
+                return page;
+            }
+        }
+    }
+
     public static void main(String[] args)throws Exception{
         
         Connection conn = DriverManager.getConnection(
@@ -0,0 +1,90 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.stream.LongStream;
+
+// ConstructorRowMapper vs hand-written mapping loops over the same result.
+//
+//   by name      - findAllItems' loop: rs.getLong("id"), rs.getString("name"), ...
+//   by position  - the fastest hand-written loop: rs.getLong(1), rs.getString(2), ...
+//   RowMapper    - ConstructorRowMapper.of(Item.class)
+//
+// Each variant maps the whole table `rounds` times after the same warm-up; the
+// best round counts (least disturbed by GC and JIT).
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.demo.RowMapperBenchmark"
+//      optional args: <rows> <rounds>
+public class RowMapperBenchmark {
+
+    private static final String DQL = "select id, name, price from item";
+
+    private interface Loop {
+        long map(ResultSet rs) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception{
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 500_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        try(Connection conn = DriverManager.getConnection("jdbc:h2:mem:mapper", "sa", "")){
+            Main.createSchema(conn);
+            new ItemBulkLoader(conn, 100, 100, 100_000)
+                .load(LongStream.rangeClosed(1, rows).mapToObj(id -> new Item(id, "Item " + id, id % 1000 + 0.99)));
+
+            RowMapper<Item> mapper = ConstructorRowMapper.of(Item.class);
+
+            Loop byName = rs -> {
+                long checksum = 0;
+                while(rs.next()){
+                    Item item = new Item(rs.getLong("id"), rs.getString("name"), rs.getDouble("price"));
+                    checksum += item.getId();
+                }
+                return checksum;
+            };
+            Loop byPosition = rs -> {
+                long checksum = 0;
+                while(rs.next()){
+                    Item item = new Item(rs.getLong(1), rs.getString(2), rs.getDouble(3));
+                    checksum += item.getId();
+                }
+                return checksum;
+            };
+            Loop rowMapper = rs -> {
+                long checksum = 0;
+                while(rs.next()){
+                    Item item = mapper.mapRow(rs);
+                    checksum += item.getId();
+                }
+                return checksum;
+            };
+
+            System.out.println("=== ROW MAPPING: " + rows + " rows, best of " + rounds + " ===");
+            long expected = rows * (rows + 1) / 2;
+            run(conn, "by name    ", byName, rounds, rows, expected);
+            run(conn, "by position", byPosition, rounds, rows, expected);
+            run(conn, "RowMapper  ", rowMapper, rounds, rows, expected);
+        }
+    }
+
+    private static void run(Connection conn, String label, Loop loop, int rounds, long rows, long expected) throws Exception{
+        long best = Long.MAX_VALUE;
+        // the first rounds are warm-up for the JIT
+        for(int round = 0; round < rounds + 3; round++){
+            try(PreparedStatement ps = conn.prepareStatement(DQL); ResultSet rs = ps.executeQuery()){
+                long started = System.nanoTime();
+                long checksum = loop.map(rs);
+                long nanos = System.nanoTime() - started;
+                if(checksum != expected){
+                    throw new IllegalStateException(label + " mapped the wrong rows");
+                }
+                if(round >= 3){
+                    best = Math.min(best, nanos);
+                }
+            }
+        }
+        System.out.printf("%s: %6.1f ms  (%.0f ns/row)%n", label, best / 1e6, (double) best / rows);
+    }
+}
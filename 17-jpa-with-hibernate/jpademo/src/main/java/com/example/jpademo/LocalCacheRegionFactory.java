@@ -0,0 +1,226 @@
+package com.example.jpademo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+// Second-level and query cache regions kept in this JVM - no cache server, no
+// extra dependency. Enabled in persistence.xml:
+//
+//   hibernate.cache.region.factory_class = com.example.jpademo.LocalCacheRegionFactory
+//   hibernate.cache.local.max_entries    = 10000   entries per region (default 10_000)
+//   hibernate.cache.local.ttl_seconds    = 600     0 = entries never expire (default 600)
+//   hibernate.cache.local.<region>.max_entries / .ttl_seconds   per-region override
+//
+// Hibernate builds the concurrency strategy (read-write, read-only, ...) on top of
+// the storage here; this class only decides what is kept and for how long. Each
+// region is an LRU map bounded by max_entries, and entries older than the TTL are
+// dropped when they are read.
+//
+// Two kinds of entries are never evicted:
+//   - read-write soft locks: while an entity is being updated its cache entry is a
+//     lock; dropping it would let a concurrent load put the old state back
+//   - the update-timestamps region: the query cache compares a cached result's time
+//     against the last update of each table it read; a forgotten timestamp would
+//     make every cached result look current
+//
+// statistics() gives hits, misses, puts, evictions and expirations per region,
+// independent of hibernate.generate_statistics.
+public class LocalCacheRegionFactory extends RegionFactoryTemplate{
+
+    public static final String MAX_ENTRIES = "hibernate.cache.local.max_entries";
+    public static final String TTL_SECONDS = "hibernate.cache.local.ttl_seconds";
+    private static final String PREFIX = "hibernate.cache.local.";
+
+    private static final long DEFAULT_MAX_ENTRIES = 10_000;
+    private static final long DEFAULT_TTL_SECONDS = 600;
+
+    private final Map<String, Storage> regions = new ConcurrentHashMap<>();
+    private volatile Map<String, Object> settings = Map.of();
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions options, Map<String, Object> configValues){
+        settings = new HashMap<>(configValues);
+    }
+
+    @Override
+    protected void releaseFromUse(){
+        regions.values().forEach(Storage::release);
+        regions.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                   DomainDataRegionBuildingContext buildingContext){
+        return storage(regionConfig.getRegionName(), true);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory){
+        return storage(regionName, true);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory){
+        return storage(regionName, false);
+    }
+
+    // one entry per region, by region name
+    public List<RegionStatistics> statistics(){
+        List<RegionStatistics> result = new ArrayList<>();
+        for(Storage storage : regions.values()){
+            result.add(storage.statistics());
+        }
+        return result;
+    }
+
+    // null if there is no such region
+    public RegionStatistics statistics(String regionName){
+        Storage storage = regions.get(regionName);
+        return storage == null ? null : storage.statistics();
+    }
+
+    private Storage storage(String regionName, boolean bounded){
+        long maxEntries = bounded ? setting(regionName, "max_entries", DEFAULT_MAX_ENTRIES) : Long.MAX_VALUE;
+        long ttlSeconds = bounded ? setting(regionName, "ttl_seconds", DEFAULT_TTL_SECONDS) : 0;
+        if(maxEntries < 1 || ttlSeconds < 0){
+            throw new IllegalArgumentException("Bad cache settings for region " + regionName
+                + ": max_entries " + maxEntries + ", ttl_seconds " + ttlSeconds);
+        }
+        Storage storage = new Storage(regionName, maxEntries, TimeUnit.SECONDS.toNanos(ttlSeconds));
+        regions.put(regionName, storage);
+        return storage;
+    }
+
+    // hibernate.cache.local.<region>.<name>, then hibernate.cache.local.<name>, then the default
+    private long setting(String regionName, String name, long defaultValue){
+        Object value = settings.get(PREFIX + regionName + "." + name);
+        if(value == null){
+            value = settings.get(PREFIX + name);
+        }
+        return value == null ? defaultValue : Long.parseLong(value.toString().trim());
+    }
+
+    public record RegionStatistics(String region, long hits, long misses, long puts, long evictions,
+                                   long expirations, int size){
+
+        public double hitRatio(){
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    // One region: an access-ordered (LRU) map, guarded by "this".
+    private static final class Storage implements DomainDataStorageAccess{
+        private final String name;
+        private final long maxEntries;
+        private final long ttlNanos;
+        private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder puts = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder expirations = new LongAdder();
+
+        Storage(String name, long maxEntries, long ttlNanos){
+            this.name = name;
+            this.maxEntries = maxEntries;
+            this.ttlNanos = ttlNanos;
+        }
+
+        @Override
+        public synchronized Object getFromCache(Object key, SharedSessionContractImplementor session){
+            Entry entry = entries.get(key);
+            if(entry != null && ttlNanos > 0 && !isLock(entry.value) && System.nanoTime() - entry.storedAt > ttlNanos){
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            if(entry == null){
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+
+        @Override
+        public synchronized void putIntoCache(Object key, Object value, SharedSessionContractImplementor session){
+            entries.put(key, new Entry(value, System.nanoTime()));
+            puts.increment();
+            if(entries.size() > maxEntries){
+                evictEldest();
+            }
+        }
+
+        @Override
+        public synchronized void removeFromCache(Object key, SharedSessionContractImplementor session){
+            entries.remove(key);
+        }
+
+        @Override
+        public synchronized void clearCache(SharedSessionContractImplementor session){
+            entries.clear();
+        }
+
+        @Override
+        public synchronized boolean contains(Object key){
+            return entries.containsKey(key);
+        }
+
+        @Override
+        public synchronized void evictData(){
+            entries.clear();
+        }
+
+        @Override
+        public synchronized void evictData(Object key){
+            entries.remove(key);
+        }
+
+        @Override
+        public synchronized void release(){
+            entries.clear();
+        }
+
+        synchronized RegionStatistics statistics(){
+            return new RegionStatistics(name, hits.sum(), misses.sum(), puts.sum(), evictions.sum(),
+                expirations.sum(), entries.size());
+        }
+
+        // least recently used first, skipping soft locks
+        private void evictEldest(){
+            Iterator<Entry> it = entries.values().iterator();
+            while(it.hasNext()){
+                if(!isLock(it.next().value)){
+                    it.remove();
+                    evictions.increment();
+                    return;
+                }
+            }
+        }
+
+        private static boolean isLock(Object value){
+            return value instanceof AbstractReadWriteAccess.SoftLockImpl;
+        }
+
+        private record Entry(Object value, long storedAt){ }
+    }
+}
@@ -4,10 +4,18 @@ import jakarta.persistence.*;
 
 @Entity
 @Table(name="MESSAGE")
+// second-level cache (see persistence.xml): em.find in a new EntityManager is
+// answered from memory once the message has been loaded or written
+@Cacheable
 public class Message{
 
+    // SEQUENCE instead of IDENTITY: with IDENTITY the id only exists after the INSERT,
+    // so Hibernate must run every insert on its own and JDBC batching is silently off.
+    // allocationSize = 50 uses the pooled optimizer - one nextval per 50 new ids - and
+    // must match the INCREMENT BY of the sequence.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_seq")
+    @SequenceGenerator(name = "message_seq", sequenceName = "MESSAGE_SEQ", allocationSize = 50)
     private Long id;
 
     @Column(name="TEXT")
@@ -55,6 +63,8 @@ Understanding other GenerationType options
 
 - best for postgresql, oracle
 - hibernate calls nextVal('seq') before INSERT
+- with allocationSize > 1 (pooled optimizer) one nextVal covers many inserts,
+  and the inserts can be sent as a JDBC batch (see MessageBatchWriter)
 
 3. TABLE - a dedicated table stores the next ID value
 - maximum portability - works for any db
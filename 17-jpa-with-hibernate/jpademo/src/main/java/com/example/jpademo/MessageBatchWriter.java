@@ -0,0 +1,151 @@
+package com.example.jpademo;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+// Inserts any number of Messages without the cost of the plain em.persist loop.
+//
+// Persisting everything in one EntityManager (as JPATest does for one message)
+// keeps every Message in the persistence context: memory grows with every row and
+// each flush dirty-checks all of them again. Here:
+//   - ids come from a pooled sequence (see Message), so the INSERTs can be batched
+//   - the session sends them in JDBC batches of batchSize
+//   - every batchSize messages the persistence context is flushed and cleared,
+//     so it never holds more than one batch
+//   - the work is committed every commitEvery messages instead of once at the end
+//
+// insertAll is the StatelessSession path: no persistence context, no dirty
+// checking, no cascades or lifecycle callbacks - each insert goes straight to the
+// JDBC batch. Use it for plain ingestion; use persistAll when entity behaviour
+// (listeners, cascades, the returned managed state) matters.
+//
+// If a chunk fails it is rolled back and the exception is rethrown; chunks
+// committed before it stay in the table.
+public class MessageBatchWriter{
+
+    private final EntityManagerFactory emf;
+    private final int batchSize;
+    private final int commitEvery;
+
+    // batches of 50 (as hibernate.jdbc.batch_size), commit every 10_000 messages
+    public MessageBatchWriter(EntityManagerFactory emf){
+        this(emf, 50, 10_000);
+    }
+
+    public MessageBatchWriter(EntityManagerFactory emf, int batchSize, int commitEvery){
+        if(batchSize < 1 || commitEvery < 1){
+            throw new IllegalArgumentException("batchSize and commitEvery must be positive");
+        }
+        this.emf = emf;
+        this.batchSize = batchSize;
+        this.commitEvery = commitEvery;
+    }
+
+    public Result persistAll(Stream<Message> messages){
+        try(messages){
+            return persistAll(messages.iterator());
+        }
+    }
+
+    // em.persist with periodic flush/clear
+    public Result persistAll(Iterator<Message> messages){
+        long started = System.nanoTime();
+        long committed = 0;
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try{
+            // per session, so it also holds when persistence.xml does not set hibernate.jdbc.batch_size
+            em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            // millions of fresh rows would only push the hot messages out of the second-level cache
+            em.setProperty("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+            tx.begin();
+            long uncommitted = 0;
+            while(messages.hasNext()){
+                em.persist(messages.next());
+                uncommitted++;
+                if(uncommitted % batchSize == 0){
+                    // send the batch and forget the entities
+                    em.flush();
+                    em.clear();
+                }
+                if(uncommitted >= commitEvery){
+                    tx.commit();
+                    em.clear();
+                    committed += uncommitted;
+                    uncommitted = 0;
+                    tx.begin();
+                }
+            }
+            tx.commit();
+            committed += uncommitted;
+        } catch(RuntimeException e){
+            if(tx.isActive()){
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+        return new Result(committed, System.nanoTime() - started);
+    }
+
+    public Result insertAll(Stream<Message> messages){
+        try(messages){
+            return insertAll(messages.iterator());
+        }
+    }
+
+    // StatelessSession: no persistence context at all
+    public Result insertAll(Iterator<Message> messages){
+        long started = System.nanoTime();
+        long committed = 0;
+        StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession();
+        Transaction tx = session.getTransaction();
+        try{
+            session.setJdbcBatchSize(batchSize);
+            tx.begin();
+            long uncommitted = 0;
+            while(messages.hasNext()){
+                session.insert(messages.next());
+                if(++uncommitted >= commitEvery){
+                    tx.commit();
+                    committed += uncommitted;
+                    uncommitted = 0;
+                    tx.begin();
+                }
+            }
+            tx.commit();
+            committed += uncommitted;
+        } catch(RuntimeException e){
+            if(tx.isActive()){
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            session.close();
+        }
+        return new Result(committed, System.nanoTime() - started);
+    }
+
+    public record Result(long rows, long nanos){
+
+        public double rowsPerSecond(){
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%d rows in %.0f ms (%.0f rows/sec)", rows, nanos / 1e6, rowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.jpademo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.hibernate.Session;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Persistence;
+
+// Message inserts four ways, against the jpademo persistence unit:
+//   persist + commit each  - the JPATest pattern in a loop
+//   one persist loop       - one transaction, the persistence context never cleared
+//   persistAll             - MessageBatchWriter: JDBC batches, flush/clear every batch
+//   insertAll              - MessageBatchWriter: StatelessSession
+// and then checks that the table holds every message.
+//
+// SQL logging is switched off for the run. Any jakarta.persistence.* / hibernate.*
+// system property overrides persistence.xml, e.g. to try it without PostgreSQL:
+//   -Djakarta.persistence.jdbc.url=jdbc:h2:mem:bench -Djakarta.persistence.jdbc.driver=org.h2.Driver
+//   -Dhibernate.dialect=org.hibernate.dialect.H2Dialect   (plus the H2 jar on the classpath)
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.jpademo.MessageBatchWriterBenchmark"
+//      optional args: <messages> <messages for persist + commit each>
+public class MessageBatchWriterBenchmark{
+
+    public static void main(String[] args){
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int oneByOne = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("hibernate.show_sql", "false");
+        overrides.put("hibernate.format_sql", "false");
+        System.getProperties().forEach((key, value) -> {
+            String name = key.toString();
+            if(name.startsWith("jakarta.persistence.") || name.startsWith("hibernate.")){
+                overrides.put(name, value);
+            }
+        });
+
+        System.out.println("=== MESSAGE INSERTS: " + messages + " messages ===");
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("jpademo", overrides);
+        try{
+            MessageBatchWriter writer = new MessageBatchWriter(emf);
+            long expected = 0;
+
+            // JIT warm-up for all paths
+            writer.persistAll(texts(5_000, "warm-up"));
+            writer.insertAll(texts(5_000, "warm-up"));
+            expected += 10_000;
+
+            long started = System.nanoTime();
+            EntityManager em = emf.createEntityManager();
+            for(int i = 0; i < oneByOne; i++){
+                EntityTransaction tx = em.getTransaction();
+                tx.begin();
+                em.persist(new Message("one by one " + i));
+                tx.commit();
+            }
+            em.close();
+            expected += oneByOne;
+            report("persist + commit each", oneByOne, System.nanoTime() - started);
+
+            started = System.nanoTime();
+            em = emf.createEntityManager();
+            EntityTransaction tx = em.getTransaction();
+            tx.begin();
+            for(int i = 0; i < messages; i++){
+                em.persist(new Message("one loop " + i));
+            }
+            int managed = em.unwrap(Session.class).getStatistics().getEntityCount();
+            tx.commit();
+            em.close();
+            expected += messages;
+            report("one persist loop", messages, System.nanoTime() - started);
+            System.out.println("  " + managed + " entities in the persistence context at commit");
+
+            MessageBatchWriter.Result persisted = writer.persistAll(texts(messages, "persistAll"));
+            expected += persisted.rows();
+            report("persistAll (batched)", persisted.rows(), persisted.nanos());
+
+            MessageBatchWriter.Result inserted = writer.insertAll(texts(messages, "insertAll"));
+            expected += inserted.rows();
+            report("insertAll (stateless)", inserted.rows(), inserted.nanos());
+
+            em = emf.createEntityManager();
+            long rows = em.createQuery("select count(m) from Message m", Long.class).getSingleResult();
+            em.close();
+            System.out.println("rows in MESSAGE: " + rows + " (expected " + expected + ")");
+            System.out.println(rows == expected ? "TEST PASSED: every message was written" : "TEST FAILED");
+            if(rows != expected){
+                System.exit(1);
+            }
+        } finally {
+            emf.close();
+        }
+    }
+
+    private static Stream<Message> texts(int count, String prefix){
+        return IntStream.range(0, count).mapToObj(i -> new Message(prefix + " " + i));
+    }
+
+    private static void report(String name, long rows, long nanos){
+        System.out.printf("%-24s: %9.0f rows/sec%n", name, rows * 1e9 / nanos);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.jpademo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.stat.Statistics;
+
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Persistence;
+
+// Hot Message reads through the second-level cache (LocalCacheRegionFactory):
+//   - em.find in a new EntityManager per read, as in JPATest.persistAndFind's second
+//     transaction: first with the cache bypassed, then through it - SQL statements
+//     counted with Hibernate statistics
+//   - an update is seen by the next find (read-write strategy)
+//   - a cacheable query is answered from the query cache until a Message is
+//     inserted, then runs again (update timestamps)
+//   - the Message region stays within its max_entries (set to 500 here)
+//
+// Connection settings can be overridden like in MessageBatchWriterBenchmark.
+//
+// run: ./mvnw compile exec:java -Dexec.mainClass="com.example.jpademo.MessageCacheSimulation"
+//      optional args: <messages> <reads>
+public class MessageCacheSimulation{
+
+    public static void main(String[] args){
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int reads = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("hibernate.show_sql", "false");
+        overrides.put("hibernate.format_sql", "false");
+        overrides.put("hibernate.generate_statistics", "true");
+        overrides.put("hibernate.session.events.log", "false");
+        overrides.put("hibernate.cache.local.com.example.jpademo.Message.max_entries", "500");
+        System.getProperties().forEach((key, value) -> {
+            String name = key.toString();
+            if(name.startsWith("jakarta.persistence.") || name.startsWith("hibernate.")){
+                overrides.put(name, value);
+            }
+        });
+
+        System.out.println("=== MESSAGE SECOND-LEVEL CACHE: " + messages + " messages, " + reads + " reads ===");
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("jpademo", overrides);
+        try{
+            Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+            LocalCacheRegionFactory cache = (LocalCacheRegionFactory)
+                emf.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+            boolean correct = true;
+
+            new MessageBatchWriter(emf).persistAll(IntStream.range(0, messages).mapToObj(i -> new Message("message " + i)));
+            EntityManager em = emf.createEntityManager();
+            List<Long> ids = em.createQuery("select m.id from Message m order by m.id", Long.class).getResultList();
+            em.close();
+
+            // 90% of the reads go to 100 hot messages
+            for(int round = 0; round < 2; round++){
+                boolean cached = round == 1;
+                Random random = new Random(42);
+                long statements = statistics.getPrepareStatementCount();
+                long started = System.nanoTime();
+                for(int i = 0; i < reads; i++){
+                    int index = random.nextInt(10) < 9 ? random.nextInt(100) : random.nextInt(ids.size());
+                    em = emf.createEntityManager();
+                    if(!cached){
+                        em.setProperty("jakarta.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS);
+                    }
+                    EntityTransaction tx = em.getTransaction();
+                    tx.begin();
+                    Message found = em.find(Message.class, ids.get(index));
+                    tx.commit();
+                    em.close();
+                    correct &= found != null;
+                }
+                long sql = statistics.getPrepareStatementCount() - statements;
+                System.out.printf("%-14s: %6.1f us per find, %6d SQL statements%n",
+                    cached ? "through cache" : "cache bypassed", (System.nanoTime() - started) / 1e3 / reads, sql);
+            }
+
+            // read-write: the update replaces the cached state
+            Long hot = ids.get(0);
+            em = emf.createEntityManager();
+            em.getTransaction().begin();
+            em.find(Message.class, hot).setText("updated");
+            em.getTransaction().commit();
+            em.close();
+            long statements = statistics.getPrepareStatementCount();
+            em = emf.createEntityManager();
+            String text = em.find(Message.class, hot).getText();
+            em.close();
+            System.out.println("after update: \"" + text + "\", " + (statistics.getPrepareStatementCount() - statements)
+                + " SQL statements");
+            correct &= text.equals("updated");
+
+            // query cache: the second run is free, an insert into MESSAGE invalidates it
+            String jpql = "select m from Message m where m.text like :text order by m.id";
+            int first = cachedQuery(emf, jpql).size();
+            statements = statistics.getPrepareStatementCount();
+            int second = cachedQuery(emf, jpql).size();
+            long repeatSql = statistics.getPrepareStatementCount() - statements;
+            new MessageBatchWriter(emf).persistAll(IntStream.range(0, 1).mapToObj(i -> new Message("message 1 new")));
+            statements = statistics.getPrepareStatementCount();
+            int third = cachedQuery(emf, jpql).size();
+            long afterInsertSql = statistics.getPrepareStatementCount() - statements;
+            System.out.println("query 'message 1%': " + first + " rows, repeated with " + repeatSql
+                + " SQL statements; after an insert " + third + " rows with " + afterInsertSql);
+            correct &= first == second && repeatSql == 0 && third == first + 1 && afterInsertSql > 0;
+
+            System.out.println();
+            for(LocalCacheRegionFactory.RegionStatistics region : cache.statistics()){
+                System.out.printf("%-40s hits %7d  misses %6d  puts %6d  evictions %6d  size %5d  (%.1f%% hits)%n",
+                    region.region(), region.hits(), region.misses(), region.puts(), region.evictions(), region.size(),
+                    region.hitRatio() * 100);
+            }
+            LocalCacheRegionFactory.RegionStatistics messageRegion = cache.statistics("com.example.jpademo.Message");
+            correct &= messageRegion != null && messageRegion.size() <= 500 && messageRegion.evictions() > 0;
+
+            System.out.println(correct ? "TEST PASSED: hot reads served from the cache, writes seen" : "TEST FAILED");
+            if(!correct){
+                System.exit(1);
+            }
+        } finally {
+            emf.close();
+        }
+    }
+
+    private static List<Message> cachedQuery(EntityManagerFactory emf, String jpql){
+        EntityManager em = emf.createEntityManager();
+        try{
+            return em.createQuery(jpql, Message.class)
+                .setParameter("text", "message 1%")
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+}